@@ -0,0 +1,40 @@
+package com.gboxsw.miniac;
+
+/**
+ * Kinds of actions handled by event loops of the application. Metrics of
+ * event loops are collected separately for each kind of actions.
+ *
+ * @see Application#setMetricsEnabled(boolean)
+ */
+public enum ActionKind {
+
+	/**
+	 * Handling of a message received by a gateway.
+	 */
+	RECEIVE,
+
+	/**
+	 * Publication of a message by a gateway.
+	 */
+	PUBLISH,
+
+	/**
+	 * Synchronization of value of a data item.
+	 */
+	SYNCHRONIZATION,
+
+	/**
+	 * Request to change value of a data item.
+	 */
+	CHANGE,
+
+	/**
+	 * Scheduled action.
+	 */
+	SCHEDULED,
+
+	/**
+	 * Other internal action (e.g., a change of subscriptions).
+	 */
+	OTHER
+}
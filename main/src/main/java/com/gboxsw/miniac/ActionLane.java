@@ -0,0 +1,35 @@
+package com.gboxsw.miniac;
+
+/**
+ * Lanes of actions handled by an event loop of the application. Each lane has
+ * its own queue of pending actions ordered by submission. In each iteration,
+ * an event loop handles a batch of actions from each lane in the order of
+ * declaration of lanes, so that the delay of an action in a lane with higher
+ * priority is bounded even if lanes with lower priority are flooded.
+ *
+ * @see Application#setActionBatchSize(int)
+ */
+public enum ActionLane {
+
+	/**
+	 * System messages and system commands (e.g., exit or save).
+	 */
+	SYSTEM,
+
+	/**
+	 * Control actions, such as subscription changes, requests to change or
+	 * synchronize value of data items and messages of the internal mailbox.
+	 */
+	CONTROL,
+
+	/**
+	 * Scheduled actions.
+	 */
+	SCHEDULED,
+
+	/**
+	 * Bulk traffic, such as received messages and publications (the default
+	 * lane of messages).
+	 */
+	BULK
+}
@@ -1,10 +1,29 @@
 package com.gboxsw.miniac;
 
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,21 +64,93 @@ public final class Application {
 	 */
 	public static final int DEFAULT_AUTOSAVE_PERIOD = 30 * 60;
 
+	/**
+	 * Default maximal number of topics per gateway with cached matching
+	 * subscriptions.
+	 */
+	public static final int DEFAULT_SUBSCRIBER_CACHE_SIZE = 1024;
+
+	/**
+	 * Default maximal number of actions executed in a single iteration of the
+	 * event loop.
+	 */
+	public static final int DEFAULT_ACTION_BATCH_SIZE = 64;
+
 	/**
 	 * Gateway with mail-boxes for internal messaging.
 	 */
 	private static final String MAILBOX_GATEWAY = "$MAILBOX";
 
+	/**
+	 * Prefix of (localized) mailbox topics of replies to requests. Replies
+	 * with such topics are routed to pending requests without subscriptions.
+	 */
+	static final String REPLY_MAILBOX_PREFIX = "mb-rr.";
+
 	/**
 	 * Name of the main application thread.
 	 */
 	private static final String THREAD_NAME = "miniac - main thread";
 
+	/**
+	 * Prefix of names of threads of additional event loops.
+	 */
+	private static final String EVENT_LOOP_THREAD_NAME = "miniac - event loop ";
+
+	/**
+	 * Name of the thread that detects slow actions.
+	 */
+	private static final String WATCHDOG_THREAD_NAME = "miniac - watchdog";
+
+	/**
+	 * Prefix of names of threads of the work-stealing executor service.
+	 */
+	private static final String WORKER_THREAD_NAME = "miniac - worker ";
+
 	/**
 	 * Maximal length of topic or topic filter.
 	 */
 	private static final int MAX_TOPIC_LENGTH = 65536;
 
+	/**
+	 * Maximal number of changed topic filters per gateway whose invalidation in
+	 * the subscriber cache is pending. If the limit is exceeded, the whole
+	 * cache is cleared.
+	 */
+	private static final int MAX_PENDING_CACHE_INVALIDATIONS = 256;
+
+	/**
+	 * Number of preallocated event slots of an event loop (must be a power of
+	 * two).
+	 */
+	private static final int EVENT_SLOT_COUNT = 1024;
+
+	/**
+	 * Maximal time in milliseconds that a producer blocked by a full action
+	 * queue waits for a signal of the event loop before the queue is checked
+	 * again (the counter of polled actions is updated lazily, hence a signal
+	 * can be missed in rare cases).
+	 */
+	private static final long CAPACITY_WAIT_MILLIS = 1;
+
+	/**
+	 * Duration in nanoseconds of a tick of the timing wheel with scheduled
+	 * actions, i.e., the resolution of scheduling.
+	 */
+	private static final long TIMER_TICK_NANOS = 1000;
+
+	/**
+	 * The default capacity of mailboxes of asynchronous subscriptions.
+	 */
+	public static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+
+	/**
+	 * Maximal number of received topics that are interned to topic
+	 * identifiers. Topics received after the limit is reached are delivered
+	 * without interning.
+	 */
+	private static final int MAX_REGISTERED_TOPICS = 65536;
+
 	/**
 	 * Logger.
 	 */
@@ -71,6 +162,11 @@ public final class Application {
 	 */
 	private static final Application defaultInstance = createSimpleApplication();
 
+	/**
+	 * Empty array of subscriptions.
+	 */
+	private static final SubscriptionImpl[] NO_SUBSCRIPTIONS = new SubscriptionImpl[0];
+
 	/**
 	 * Message listener that encapsulates a {@link SimpleMessageListener}.
 	 */
@@ -99,13 +195,29 @@ public final class Application {
 	/**
 	 * Implementation of subscription.
 	 */
-	private final class SubscriptionImpl implements Subscription, Comparable<SubscriptionImpl> {
+	private final class SubscriptionImpl implements AsyncSubscription {
 
 		/**
 		 * The topic filter.
 		 */
 		private final String topicFilter;
 
+		/**
+		 * The head of the topic filter (identifier of the gateway).
+		 */
+		private final String topicHead;
+
+		/**
+		 * The topic filter without the head.
+		 */
+		private final String localizedTopicFilter;
+
+		/**
+		 * Indicates whether the topic filter is a global topic filter, i.e.,
+		 * it is not related to a particular gateway.
+		 */
+		private final boolean global;
+
 		/**
 		 * The listener.
 		 */
@@ -116,6 +228,12 @@ public final class Application {
 		 */
 		private final int handlingPriority;
 
+		/**
+		 * The mailbox of the subscription, or null, if messages are delivered
+		 * synchronously.
+		 */
+		private final SubscriptionMailbox mailbox;
+
 		/**
 		 * Constructs the subscription.
 		 * 
@@ -125,11 +243,30 @@ public final class Application {
 		 *            the message listener.
 		 * @param handlingPriority
 		 *            the handling priority.
+		 * @param mailbox
+		 *            the mailbox of asynchronous subscription, or null.
 		 */
-		private SubscriptionImpl(String topicFilter, MessageListener messageListener, int handlingPriority) {
+		private SubscriptionImpl(String topicFilter, MessageListener messageListener, int handlingPriority,
+				SubscriptionMailbox mailbox) {
 			this.topicFilter = topicFilter;
+			this.topicHead = getTopicHead(topicFilter);
+			this.localizedTopicFilter = createTopicFilterWithoutHead(topicFilter);
+			this.global = SINGLE_LEVEL_WILDCARD.equals(topicHead) || MULTI_LEVEL_WILDCARD.equals(topicHead);
 			this.messageListener = messageListener;
 			this.handlingPriority = handlingPriority;
+			this.mailbox = mailbox;
+		}
+
+		/**
+		 * Returns whether the subscription belongs to an application.
+		 * 
+		 * @param application
+		 *            the application.
+		 * @return true, if the subscription belongs to the application, false
+		 *         otherwise.
+		 */
+		private boolean isOwnedBy(Application application) {
+			return Application.this == application;
 		}
 
 		@Override
@@ -143,8 +280,23 @@ public final class Application {
 		}
 
 		@Override
-		public int compareTo(SubscriptionImpl o) {
-			return Integer.compare(o.handlingPriority, handlingPriority);
+		public int getCapacity() {
+			return (mailbox != null) ? mailbox.getCapacity() : 0;
+		}
+
+		@Override
+		public int getBacklog() {
+			return (mailbox != null) ? mailbox.getBacklog() : 0;
+		}
+
+		@Override
+		public long getDeliveredMessageCount() {
+			return (mailbox != null) ? mailbox.getDeliveredMessageCount() : 0;
+		}
+
+		@Override
+		public long getDroppedMessageCount() {
+			return (mailbox != null) ? mailbox.getDroppedMessageCount() : 0;
 		}
 	}
 
@@ -154,9 +306,17 @@ public final class Application {
 	static final class TopicFilter {
 
 		/**
-		 * Subscriptions to the topic filter.
+		 * Subscriptions to the topic filter ordered by their handling priority
+		 * (subscriptions with the same priority are ordered by time of their
+		 * creation). The array is never modified, it is replaced when the
+		 * subscriptions change.
+		 */
+		private volatile SubscriptionImpl[] subscriptions = NO_SUBSCRIPTIONS;
+
+		/**
+		 * The topic filter.
 		 */
-		private final List<SubscriptionImpl> subscriptions = new ArrayList<>();
+		private final String filter;
 
 		/**
 		 * Parsed topic filter.
@@ -175,6 +335,7 @@ public final class Application {
 		 *            the topic filter.
 		 */
 		TopicFilter(String topicFilter) {
+			this.filter = topicFilter;
 			String[] parsedTopicFilter = parseTopicHierarchy(topicFilter);
 
 			// check whether topic filter ends with the multilevel wild-card
@@ -196,36 +357,116 @@ public final class Application {
 		}
 
 		/**
-		 * Returns whether topic matches the filter.
+		 * Adds a subscription to the topic filter. The method invocation is
+		 * synchronized by the application lock.
 		 * 
-		 * @param parsedTopic
-		 *            the parsed topic as an array levels.
-		 * @return true, if topic matches the filter, false otherwise.
+		 * @param subscription
+		 *            the subscription.
 		 */
-		boolean matchTopic(String[] parsedTopic) {
-			// check number of levels
-			if (endsWithMLWildcard) {
-				if (parsedTopic.length < topicFilter.length) {
-					return false;
-				}
-			} else {
-				if (parsedTopic.length != topicFilter.length) {
-					return false;
+		private void addSubscription(SubscriptionImpl subscription) {
+			SubscriptionImpl[] oldSubscriptions = subscriptions;
+
+			// find position preserving order by handling priority
+			int position = oldSubscriptions.length;
+			while ((position > 0) && (oldSubscriptions[position - 1].handlingPriority < subscription.handlingPriority)) {
+				position--;
+			}
+
+			SubscriptionImpl[] newSubscriptions = new SubscriptionImpl[oldSubscriptions.length + 1];
+			System.arraycopy(oldSubscriptions, 0, newSubscriptions, 0, position);
+			newSubscriptions[position] = subscription;
+			System.arraycopy(oldSubscriptions, position, newSubscriptions, position + 1,
+					oldSubscriptions.length - position);
+			subscriptions = newSubscriptions;
+		}
+
+		/**
+		 * Removes a subscription from the topic filter. The method invocation
+		 * is synchronized by the application lock.
+		 * 
+		 * @param subscription
+		 *            the subscription.
+		 * @return true, if the subscription has been removed, false otherwise.
+		 */
+		private boolean removeSubscription(SubscriptionImpl subscription) {
+			SubscriptionImpl[] oldSubscriptions = subscriptions;
+			for (int i = 0; i < oldSubscriptions.length; i++) {
+				if (oldSubscriptions[i] == subscription) {
+					if (oldSubscriptions.length == 1) {
+						subscriptions = NO_SUBSCRIPTIONS;
+					} else {
+						SubscriptionImpl[] newSubscriptions = new SubscriptionImpl[oldSubscriptions.length - 1];
+						System.arraycopy(oldSubscriptions, 0, newSubscriptions, 0, i);
+						System.arraycopy(oldSubscriptions, i + 1, newSubscriptions, i, newSubscriptions.length - i);
+						subscriptions = newSubscriptions;
+					}
+
+					return true;
 				}
 			}
 
-			// check levels
-			for (int i = topicFilter.length - 1; i >= 0; i--) {
-				if (topicFilter[i] == SINGLE_LEVEL_WILDCARD) {
-					continue;
+			return false;
+		}
+
+		/**
+		 * Returns the topic filter.
+		 * 
+		 * @return the topic filter.
+		 */
+		String getTopicFilter() {
+			return filter;
+		}
+
+		/**
+		 * Returns levels of the topic filter without the trailing multi-level
+		 * wild-card. Single level wild-cards are represented by the constant
+		 * {@link Application#SINGLE_LEVEL_WILDCARD}.
+		 * 
+		 * @return the levels of topic filter (the array cannot be modified).
+		 */
+		String[] getLevels() {
+			return topicFilter;
+		}
+
+		/**
+		 * Returns whether the topic filter ends with the multi-level wild-card.
+		 * 
+		 * @return true, if the topic filter ends with the multi-level
+		 *         wild-card, false otherwise.
+		 */
+		boolean endsWithMultiLevelWildcard() {
+			return endsWithMLWildcard;
+		}
+
+		/**
+		 * Returns whether topic matches the filter. The topic is not parsed,
+		 * its levels are compared in place.
+		 * 
+		 * @param topic
+		 *            the topic.
+		 * @return true, if topic matches the filter, false otherwise.
+		 */
+		boolean matchTopic(String topic) {
+			int levelIdx = 0;
+			int levelStart = 0;
+			while (levelStart <= topic.length()) {
+				if (levelIdx == topicFilter.length) {
+					// topic has more levels than the filter
+					return endsWithMLWildcard;
 				}
 
-				if (!topicFilter[i].equals(parsedTopic[i])) {
+				int levelEnd = TopicLevels.levelEnd(topic, levelStart);
+				String filterLevel = topicFilter[levelIdx];
+				if ((filterLevel != SINGLE_LEVEL_WILDCARD)
+						&& !TopicLevels.levelEquals(topic, levelStart, levelEnd, filterLevel)) {
 					return false;
 				}
+
+				levelIdx++;
+				levelStart = levelEnd + 1;
 			}
 
-			return true;
+			return levelIdx == topicFilter.length;
 		}
 	}
 
@@ -240,1841 +481,5377 @@ public final class Application {
 		private final Gateway gateway;
 
 		/**
-		 * Simple topic filters of the gateway, i.e., topic filters without
-		 * wild-cards.
+		 * Namespace of registered topics of the gateway.
 		 */
-		private final Map<String, TopicFilter> simpleTopicFilters = new HashMap<>();
+		private final TopicRegistry.Namespace topics;
 
 		/**
-		 * Topic filters of the gateway with wild-cards.
+		 * The event loop that handles actions of the gateway.
 		 */
-		private final Map<String, TopicFilter> wildcardTopicFilters = new HashMap<>();
+		private final EventLoop eventLoop;
 
 		/**
-		 * Constructs the gateway holder.
-		 * 
-		 * @param gateway
-		 *            the underlying messaging gateway.
+		 * The default lane of received and published messages of the gateway.
 		 */
-		public GatewayHolder(Gateway gateway) {
-			this.gateway = gateway;
-		}
-	}
+		private final ActionLane lane;
 
-	/**
-	 * Schedule of a scheduled action.
-	 */
-	private final class Schedule implements Cancellable {
+		/**
+		 * Index of topic filters of the gateway. The index is immutable, it is
+		 * replaced when the topic filters change.
+		 */
+		private volatile TopicFilterIndex topicFilters = TopicFilterIndex.EMPTY;
 
 		/**
-		 * No repeat.
+		 * Cache of subscriptions (ordered by handling priority) that match
+		 * recently received topics. The cache is created when the application
+		 * is launched and it is accessed only in the thread of the event loop
+		 * of the gateway.
 		 */
-		private static final byte NONE = 1;
+		private TopicCache<SubscriptionImpl[]> subscriberCache;
 
 		/**
-		 * Repeat at fixed rate.
+		 * Changed topic filters whose matching topics have not been
+		 * invalidated in the subscriber cache yet.
 		 */
-		private static final byte FIXED_RATE = 2;
+		private final Queue<TopicFilter> changedTopicFilters = new ConcurrentLinkedQueue<>();
 
 		/**
-		 * Repeat with fixed delay.
+		 * The number of changed topic filters with pending invalidation.
 		 */
-		private static final byte FIXED_DELAY = 3;
+		private final AtomicInteger changedTopicFilterCount = new AtomicInteger();
 
 		/**
-		 * The initial delay in milliseconds.
+		 * Indicates that the whole subscriber cache must be cleared.
 		 */
-		private final long initialDelay;
+		private volatile boolean subscriberCacheOutdated;
 
 		/**
-		 * The period between repetitions in milliseconds.
+		 * The policy applied to received messages, when the action queue of
+		 * the event loop is full.
 		 */
-		private final long period;
+		private OverloadPolicy overloadPolicy = OverloadPolicy.BLOCK;
 
 		/**
-		 * The repetition mode.
+		 * Buffers of received messages waiting for delivery indexed by
+		 * ordinals of lanes, if the overload policy replaces pending
+		 * messages. The buffers are created when the application with bounded
+		 * action queues is launched.
 		 */
-		private final byte repetitionMode;
+		private MessageBuffer[] messageBuffers;
 
 		/**
-		 * Indicates whether schedule was cancelled.
+		 * The number of dropped received messages.
 		 */
-		private volatile boolean cancelled;
+		private final AtomicLong droppedMessageCount = new AtomicLong();
 
 		/**
-		 * Constructs schedule.
+		 * The number of received messages replaced by a newer message with
+		 * the same topic.
 		 */
-		private Schedule(long initialDelay, long period, byte repetitionMode) {
-			this.initialDelay = initialDelay;
-			this.period = period;
-			this.repetitionMode = repetitionMode;
+		private final AtomicLong conflatedMessageCount = new AtomicLong();
+
+		/**
+		 * The number of received messages whose submission was blocked.
+		 */
+		private final AtomicLong blockedMessageCount = new AtomicLong();
+
+		/**
+		 * Constructs the gateway holder.
+		 * 
+		 * @param gateway
+		 *            the underlying messaging gateway.
+		 * @param topics
+		 *            the namespace of registered topics of the gateway.
+		 * @param eventLoop
+		 *            the event loop that handles actions of the gateway.
+		 * @param lane
+		 *            the default lane of received and published messages of
+		 *            the gateway.
+		 */
+		public GatewayHolder(Gateway gateway, TopicRegistry.Namespace topics, EventLoop eventLoop, ActionLane lane) {
+			this.gateway = gateway;
+			this.topics = topics;
+			this.eventLoop = eventLoop;
+			this.lane = lane;
 		}
 
-		@Override
-		public void cancel() {
-			if (!cancelled) {
-				cancelled = true;
-				cancelActionWithSchedule(Schedule.this);
+		/**
+		 * Requests invalidation of cached subscriptions of all topics that
+		 * match a changed topic filter. The method must be invoked after the
+		 * change of topic filter is visible.
+		 * 
+		 * @param filter
+		 *            the changed topic filter.
+		 */
+		private void invalidateSubscriberCache(TopicFilter filter) {
+			if (changedTopicFilterCount.incrementAndGet() > MAX_PENDING_CACHE_INVALIDATIONS) {
+				changedTopicFilterCount.decrementAndGet();
+				subscriberCacheOutdated = true;
+			} else {
+				changedTopicFilters.offer(filter);
 			}
 		}
 
-		@Override
-		public boolean isCancelled() {
-			return cancelled;
+		/**
+		 * Returns the subscriber cache with applied pending invalidations. The
+		 * method is invoked in the main application thread.
+		 * 
+		 * @return the subscriber cache.
+		 */
+		private TopicCache<SubscriptionImpl[]> getValidSubscriberCache() {
+			if (subscriberCacheOutdated) {
+				subscriberCacheOutdated = false;
+				subscriberCache.clear();
+			}
+
+			TopicFilter filter;
+			while ((filter = changedTopicFilters.poll()) != null) {
+				changedTopicFilterCount.decrementAndGet();
+				subscriberCache.invalidate(filter);
+			}
+
+			return subscriberCache;
 		}
 	}
 
 	/**
-	 * Scheduled action.
+	 * Buffer of received messages of a gateway in a lane. Each buffered
+	 * message has a pending delivery action in the lane, so that messages
+	 * of different lanes do not wait for each other. The buffer is guarded
+	 * by its own monitor.
 	 */
-	private final class ScheduledAction implements Comparable<ScheduledAction> {
+	private static final class MessageBuffer {
 
 		/**
-		 * The scheduled action.
+		 * Buffered messages in the order of delivery.
 		 */
-		private final Action action;
+		private final ArrayDeque<BufferedMessage> messages = new ArrayDeque<>();
 
 		/**
-		 * The time in milliseconds when the action is scheduled.
+		 * The last buffered message of each topic, or null, if messages are
+		 * not conflated.
 		 */
-		private final long executionTime;
+		private final Map<String, BufferedMessage> lastMessages;
 
 		/**
-		 * The number of non-scheduled actions that precede the scheduled
-		 * action.
+		 * Constructs the message buffer.
+		 * 
+		 * @param conflated
+		 *            true, if messages with the same topic are conflated,
+		 *            false otherwise.
 		 */
-		private final long precedingActionCount;
+		private MessageBuffer(boolean conflated) {
+			lastMessages = conflated ? new HashMap<String, BufferedMessage>() : null;
+		}
+	}
+
+	/**
+	 * Received message in the message buffer of a gateway.
+	 */
+	private static final class BufferedMessage {
 
 		/**
-		 * The schedule of action.
+		 * The message (replaced, if a newer message is conflated).
 		 */
-		private final Schedule schedule;
+		private Message message;
 
 		/**
-		 * Constructs a scheduled action.
+		 * Constructs the buffered message.
+		 * 
+		 * @param message
+		 *            the message.
 		 */
-		public ScheduledAction(long executionTime, Action action, Schedule schedule, long precedingActions) {
-			this.action = action;
-			this.executionTime = executionTime;
-			this.precedingActionCount = precedingActions;
-			this.schedule = schedule;
-		}
-
-		@Override
-		public int compareTo(ScheduledAction o) {
-			return Long.compare(executionTime, o.executionTime);
+		private BufferedMessage(Message message) {
+			this.message = message;
 		}
 	}
 
 	/**
-	 * Base class for actions that can be put into a work (action) queue.
+	 * Batch of changes of subscriptions. Changes of topic filters are collected
+	 * in the batch and applied at once, so that each modified index of topic
+	 * filters is published once and each gateway is notified by a single
+	 * action. The batch is used only while the application lock is held.
 	 */
-	private abstract class Action {
+	private final class SubscriptionBatch {
 
 		/**
-		 * Executes action.
+		 * Editors of modified indices of topic filters (the null key
+		 * represents the index of global topic filters).
 		 */
-		abstract void execute();
-	}
+		private final Map<GatewayHolder, TopicFilterIndex.Editor> editors = new HashMap<>();
 
-	/**
-	 * Persistent storage utilized to restore and save states of data items.
-	 */
-	private PersistentStorage persistentStorage;
+		/**
+		 * Topic filters with changed subscriptions (the null key represents
+		 * global topic filters).
+		 */
+		private final Map<GatewayHolder, Set<TopicFilter>> changedFilters = new HashMap<>();
 
-	/**
-	 * Autosave period in seconds, zero or negative value, if autosave is
-	 * disabled.
-	 */
-	private int autosavePeriodInSeconds = DEFAULT_AUTOSAVE_PERIOD;
+		/**
+		 * Topic filters to be added to gateways.
+		 */
+		private final Map<GatewayHolder, List<String>> addedTopicFilters = new LinkedHashMap<>();
 
-	/**
-	 * Holders of attached messaging gateways.
-	 */
-	private final Map<String, GatewayHolder> gatewayHolders = new HashMap<>();
+		/**
+		 * Topic filters to be removed from gateways.
+		 */
+		private final Map<GatewayHolder, List<String>> removedTopicFilters = new LinkedHashMap<>();
 
-	/**
-	 * Gateway for system messages.
-	 */
-	private final SystemGateway systemGateway;
+		/**
+		 * Adds a subscription.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the topic filter, or null, if the
+		 *            topic filter is a global topic filter.
+		 * @param localizedTopicFilter
+		 *            the (localized) topic filter.
+		 * @param subscription
+		 *            the subscription.
+		 */
+		private void addSubscription(GatewayHolder sourceGatewayHolder, String localizedTopicFilter,
+				SubscriptionImpl subscription) {
+			TopicFilter filter = getFilter(sourceGatewayHolder, localizedTopicFilter);
+			if (filter == null) {
+				// if filter does not exist, create the filter
+				filter = new TopicFilter(localizedTopicFilter);
+				filter.addSubscription(subscription);
+				getEditor(sourceGatewayHolder).add(filter);
+				notifyGateways(sourceGatewayHolder, localizedTopicFilter, addedTopicFilters);
+			} else {
+				// add subscription to existing topic filter
+				filter.addSubscription(subscription);
+			}
 
-	/**
-	 * Gateway for internal mailbox messaging.
-	 */
-	private final MailboxGateway mailboxGateway;
+			markChanged(sourceGatewayHolder, filter);
+		}
 
-	/**
-	 * Topic filters that are not related to a particular gateway and does not
-	 * contain a wild-cards.
-	 */
-	private final Map<String, TopicFilter> simpleGlobalTopicFilters = new HashMap<>();
+		/**
+		 * Removes a subscription.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the topic filter, or null, if the
+		 *            topic filter is a global topic filter.
+		 * @param localizedTopicFilter
+		 *            the (localized) topic filter.
+		 * @param subscription
+		 *            the subscription.
+		 */
+		private void removeSubscription(GatewayHolder sourceGatewayHolder, String localizedTopicFilter,
+				SubscriptionImpl subscription) {
+			TopicFilter filter = getFilter(sourceGatewayHolder, localizedTopicFilter);
+			if ((filter == null) || !filter.removeSubscription(subscription)) {
+				// no subscription to remove
+				return;
+			}
 
-	/**
-	 * Topic filters that are not related to a particular gateway and contain a
-	 * wild-cards.
-	 */
-	private final Map<String, TopicFilter> wildcardGlobalTopicFilters = new HashMap<>();
+			if (filter.subscriptions.length == 0) {
+				// remove empty topic filter
+				getEditor(sourceGatewayHolder).remove(filter);
+				notifyGateways(sourceGatewayHolder, localizedTopicFilter, removedTopicFilters);
+			}
 
-	/**
-	 * Synchronization lock for action queues.
-	 */
-	private final Object queueLock = new Object();
+			markChanged(sourceGatewayHolder, filter);
+		}
 
-	/**
-	 * The total number of submitted non-scheduled actions.
-	 */
-	private long totalActionCount = 0;
+		/**
+		 * Publishes modified indices of topic filters, invalidates cached
+		 * subscriptions and puts subscription changes to the working queue.
+		 */
+		private void apply() {
+			for (Map.Entry<GatewayHolder, TopicFilterIndex.Editor> entry : editors.entrySet()) {
+				setTopicFilterIndex(entry.getKey(), entry.getValue().build());
+			}
 
-	/**
-	 * Queue of pending actions.
-	 */
-	private final Queue<Action> actionQueue = new LinkedList<>();
+			for (Map.Entry<GatewayHolder, Set<TopicFilter>> entry : changedFilters.entrySet()) {
+				for (TopicFilter filter : entry.getValue()) {
+					invalidateSubscriberCaches(entry.getKey(), filter);
+				}
+			}
 
-	/**
-	 * Queue of scheduled pending actions.
-	 */
-	private final Queue<ScheduledAction> scheduledActionQueue = new PriorityQueue<>();
+			for (Map.Entry<GatewayHolder, List<String>> entry : addedTopicFilters.entrySet()) {
+				enqueueAction(createSubscriptionChangeAction(entry.getKey(), entry.getValue(), true));
+			}
 
-	/**
-	 * Internal counter for generating unique identifiers.
-	 */
-	private long uidCounter = 0;
+			for (Map.Entry<GatewayHolder, List<String>> entry : removedTopicFilters.entrySet()) {
+				enqueueAction(createSubscriptionChangeAction(entry.getKey(), entry.getValue(), false));
+			}
+		}
 
-	/**
-	 * Internal map that stores key-value pairs associated with the application.
-	 */
-	private final Map<String, Object> properties = new HashMap<>();
+		/**
+		 * Returns the topic filter including changes in the batch.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the topic filter, or null, if the
+		 *            topic filter is a global topic filter.
+		 * @param localizedTopicFilter
+		 *            the (localized) topic filter.
+		 * @return the topic filter, or null, if the topic filter does not
+		 *         exist.
+		 */
+		private TopicFilter getFilter(GatewayHolder sourceGatewayHolder, String localizedTopicFilter) {
+			TopicFilterIndex.Editor editor = editors.get(sourceGatewayHolder);
+			if (editor != null) {
+				return editor.get(localizedTopicFilter);
+			}
 
-	/**
-	 * List of modules associated to this application.
-	 */
-	private final List<Module> modules = new ArrayList<Module>();
+			if (sourceGatewayHolder == null) {
+				return globalTopicFilters.get(localizedTopicFilter);
+			} else {
+				return sourceGatewayHolder.topicFilters.get(localizedTopicFilter);
+			}
+		}
 
-	/**
-	 * List of registered shutdown hooks.
-	 */
-	private final List<Runnable> shutdownHooks = new ArrayList<>();
+		/**
+		 * Returns the editor of the index of topic filters.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the index, or null, if the index
+		 *            contains global topic filters.
+		 * @return the editor.
+		 */
+		private TopicFilterIndex.Editor getEditor(GatewayHolder sourceGatewayHolder) {
+			TopicFilterIndex.Editor editor = editors.get(sourceGatewayHolder);
+			if (editor == null) {
+				if (sourceGatewayHolder == null) {
+					editor = globalTopicFilters.edit();
+				} else {
+					editor = sourceGatewayHolder.topicFilters.edit();
+				}
 
-	/**
-	 * Indicates that initialization of modules started and it is not possible
-	 * to add new modules to the application.
-	 */
-	private boolean immutableModules;
+				editors.put(sourceGatewayHolder, editor);
+			}
 
-	/**
-	 * Indicates whether the application has been launched.
-	 */
-	private boolean launched;
+			return editor;
+		}
 
-	/**
-	 * The main application thread (used as serialization and event handling
-	 * thread).
-	 */
-	private final Thread applicationThread;
+		/**
+		 * Records a topic filter with changed subscriptions.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the topic filter, or null, if the
+		 *            topic filter is a global topic filter.
+		 * @param filter
+		 *            the topic filter.
+		 */
+		private void markChanged(GatewayHolder sourceGatewayHolder, TopicFilter filter) {
+			Set<TopicFilter> filters = changedFilters.get(sourceGatewayHolder);
+			if (filters == null) {
+				filters = new LinkedHashSet<>();
+				changedFilters.put(sourceGatewayHolder, filters);
+			}
 
-	/**
-	 * Indicates that exit of the application is requested.
-	 */
-	private volatile boolean exitRequested;
+			filters.add(filter);
+		}
 
-	/**
-	 * Indicates that the application has been finalized.
-	 */
-	private volatile boolean finalized;
+		/**
+		 * Records a topic filter change for gateways related to the topic
+		 * filter.
+		 * 
+		 * @param sourceGatewayHolder
+		 *            the gateway related to the topic filter, or null, if the
+		 *            topic filter is a global topic filter.
+		 * @param localizedTopicFilter
+		 *            the (localized) topic filter.
+		 * @param topicFilterChanges
+		 *            the map where the change is recorded.
+		 */
+		private void notifyGateways(GatewayHolder sourceGatewayHolder, String localizedTopicFilter,
+				Map<GatewayHolder, List<String>> topicFilterChanges) {
+			if (sourceGatewayHolder == null) {
+				for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+					recordTopicFilter(gatewayHolder, localizedTopicFilter, topicFilterChanges);
+				}
+			} else {
+				recordTopicFilter(sourceGatewayHolder, localizedTopicFilter, topicFilterChanges);
+			}
+		}
 
-	/**
-	 * Synchronization lock.
-	 */
-	private final Object lock = new Object();
+		/**
+		 * Records a topic filter change for a gateway.
+		 * 
+		 * @param gatewayHolder
+		 *            the gateway.
+		 * @param localizedTopicFilter
+		 *            the (localized) topic filter.
+		 * @param topicFilterChanges
+		 *            the map where the change is recorded.
+		 */
+		private void recordTopicFilter(GatewayHolder gatewayHolder, String localizedTopicFilter,
+				Map<GatewayHolder, List<String>> topicFilterChanges) {
+			List<String> topicFilters = topicFilterChanges.get(gatewayHolder);
+			if (topicFilters == null) {
+				topicFilters = new ArrayList<>();
+				topicFilterChanges.put(gatewayHolder, topicFilters);
+			}
 
-	/**
-	 * Synchronization lock controlling the finalization of the application.
-	 */
-	private final Object finalizationLock = new Object();
+			topicFilters.add(localizedTopicFilter);
+		}
+	}
 
 	/**
-	 * Executor service to be used by gateways.
+	 * Schedule of a scheduled action. The schedule is the entry of the timing
+	 * wheel with scheduled actions and it is reused for all repetitions of the
+	 * action.
 	 */
-	private final ExecutorService executorService = Executors.newCachedThreadPool();
+	private final class Schedule extends TimingWheel.Entry implements Cancellable {
 
-	/**
-	 * Constructs the application.
-	 */
-	public Application() {
-		// construct the serialization and event handling thread
-		applicationThread = new Thread(new Runnable() {
-			@Override
-			public void run() {
-				// execute the application loop
-				executeApplication();
+		/**
+		 * No repeat.
+		 */
+		private static final byte NONE = 1;
 
-				// notify that the application is finalized
-				synchronized (finalizationLock) {
-					finalized = true;
-					finalizationLock.notifyAll();
-				}
+		/**
+		 * Repeat at fixed rate.
+		 */
+		private static final byte FIXED_RATE = 2;
 
-				// terminate JVM
-				System.exit(0);
-			}
-		}, THREAD_NAME);
+		/**
+		 * Repeat with fixed delay.
+		 */
+		private static final byte FIXED_DELAY = 3;
 
-		// create system gateway
-		systemGateway = new SystemGateway();
-		systemGateway.attachToApplication(SYSTEM_GATEWAY, this);
-		gatewayHolders.put(SYSTEM_GATEWAY, new GatewayHolder(systemGateway));
+		/**
+		 * The initial delay in nanoseconds.
+		 */
+		private final long initialDelay;
 
-		// create mailbox gateway
-		mailboxGateway = new MailboxGateway();
-		mailboxGateway.attachToApplication(MAILBOX_GATEWAY, this);
-		gatewayHolders.put(MAILBOX_GATEWAY, new GatewayHolder(mailboxGateway));
-	}
+		/**
+		 * The period between repetitions in nanoseconds.
+		 */
+		private final long period;
 
-	/**
-	 * Adds a module to the application.
-	 * 
-	 * @param module
-	 *            the module.
-	 */
-	public void addModule(Module module) {
-		if (module == null) {
-			throw new NullPointerException("Module cannot be null.");
+		/**
+		 * The repetition mode.
+		 */
+		private final byte repetitionMode;
+
+		/**
+		 * Indicates whether schedule was cancelled.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * The scheduled action.
+		 */
+		private Action action;
+
+		/**
+		 * The number of non-scheduled actions that precede the next execution
+		 * of the scheduled action.
+		 */
+		private long precedingActionCount;
+
+		/**
+		 * The time in nanoseconds (measured by {@link MonotonicClock}) when
+		 * the scheduled action should be executed next time.
+		 */
+		private long dueTime;
+
+		/**
+		 * The time in nanoseconds when the scheduled action became ready for
+		 * execution (used only if metrics are enabled).
+		 */
+		private long readyTime;
+
+		/**
+		 * Constructs schedule.
+		 */
+		private Schedule(long initialDelay, long period, byte repetitionMode) {
+			this.initialDelay = initialDelay;
+			this.period = period;
+			this.repetitionMode = repetitionMode;
 		}
 
-		synchronized (lock) {
-			if ((immutableModules) || (launched)) {
-				throw new IllegalStateException("It is not possible to add a module to the launched application.");
+		@Override
+		public void cancel() {
+			if (!cancelled) {
+				cancelled = true;
+				pendingSchedules.offer(Schedule.this);
 			}
+		}
 
-			module.attachToApplication(this);
-			modules.add(module);
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
 		}
 	}
 
 	/**
-	 * Adds a gateway to the application.
-	 * 
-	 * @param id
-	 *            the identifier of the gateway.
-	 * @param gateway
-	 *            the gateway.
+	 * Request waiting for a reply. The request is the future of the reply.
 	 */
-	public void addGateway(String id, Gateway gateway) {
-		if (gateway == null) {
-			throw new NullPointerException("Gateway cannot be null.");
-		}
+	private final class PendingRequest implements Future<Message> {
 
-		if (!Gateway.isValidId(id)) {
-			throw new IllegalArgumentException("Malformed/invalid gateway identifier.");
-		}
+		/**
+		 * The identifier of the request.
+		 */
+		private final long id;
 
-		synchronized (lock) {
-			if (launched) {
-				throw new IllegalStateException("It is not possible to add a gateway to the launched application.");
-			}
+		/**
+		 * The timer that fails the request when the timeout elapses.
+		 */
+		private volatile Cancellable timeoutTimer;
 
-			if (gatewayHolders.containsKey(id)) {
-				throw new IllegalArgumentException("Duplicated gateway identifier \"" + id + "\".");
-			}
+		/**
+		 * Indicates whether the request is completed.
+		 */
+		private boolean done;
+
+		/**
+		 * Indicates whether the request was cancelled.
+		 */
+		private boolean cancelled;
+
+		/**
+		 * The reply.
+		 */
+		private Message reply;
+
+		/**
+		 * The cause of failure of the request.
+		 */
+		private Exception failure;
 
-			gateway.attachToApplication(id, this);
-			gatewayHolders.put(id, new GatewayHolder(gateway));
+		/**
+		 * Constructs the pending request.
+		 * 
+		 * @param id
+		 *            the identifier of the request.
+		 */
+		private PendingRequest(long id) {
+			this.id = id;
 		}
-	}
 
-	/**
-	 * Returns associated gateway.
-	 * 
-	 * @param id
-	 *            the identifier of the gateway.
-	 * @return the gateway or null, if such a gateway does not exist.
-	 */
-	public Gateway getGateway(String id) {
-		synchronized (lock) {
-			GatewayHolder holder = gatewayHolders.get(id);
-			if (holder != null) {
-				return holder.gateway;
+		/**
+		 * Completes the request.
+		 * 
+		 * @param reply
+		 *            the reply, or null, if the request failed.
+		 * @param failure
+		 *            the cause of failure, or null, if the request succeeded.
+		 */
+		private synchronized void complete(Message reply, Exception failure) {
+			if (done) {
+				return;
 			}
+
+			this.reply = reply;
+			this.failure = failure;
+			done = true;
+			notifyAll();
 		}
 
-		return null;
-	}
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (pendingRequests.remove(id) == null) {
+				return false;
+			}
 
-	/**
-	 * Adds a data item to the application.
-	 * 
-	 * @param gatewayId
-	 *            the identifier of a gateway which will manage the data item.
-	 *            The gateway must be instance of the class {@link DataGateway
-	 *            DataGateway}.
-	 * @param id
-	 *            the identifier of data item within the gateway.
-	 * @param dataItem
-	 *            the data item.
-	 */
-	public void addDataItem(String gatewayId, String id, DataItem<?> dataItem) {
-		if (dataItem == null) {
-			throw new NullPointerException("Data item cannot be null.");
+			timeoutTimer.cancel();
+			synchronized (this) {
+				cancelled = true;
+				complete(null, null);
+			}
+
+			return true;
 		}
 
-		if (!Gateway.isValidId(gatewayId)) {
-			throw new IllegalArgumentException("Malformed/invalid gateway identifier.");
+		@Override
+		public synchronized boolean isCancelled() {
+			return cancelled;
 		}
 
-		if (!DataItem.isValidId(id)) {
-			throw new IllegalArgumentException("Malformed/invalid identifier of data item.");
+		@Override
+		public synchronized boolean isDone() {
+			return done;
 		}
 
-		synchronized (lock) {
-			if (launched) {
-				throw new IllegalStateException("It is not possible to add a data item to the launched application.");
+		@Override
+		public synchronized Message get() throws InterruptedException, ExecutionException {
+			if (!done && isInApplicationThread()) {
+				throw new IllegalStateException("It is not possible to wait for a reply in a thread of an event loop.");
 			}
 
-			GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
-			if (gatewayHolder == null) {
-				throw new IllegalArgumentException("Unknown gateway \"" + gatewayId + "\".");
+			while (!done) {
+				wait();
 			}
 
-			if (!(gatewayHolder.gateway instanceof DataGateway)) {
-				throw new IllegalArgumentException("The \"" + gatewayId + "\" is not a data gateway.");
+			return getResult();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * 
+		 * <p>
+		 * Unlike {@link #get()}, the method can be invoked in a thread of an
+		 * event loop, since the wait is bounded. However, replies are handled
+		 * in the main application thread, hence the reply cannot be received
+		 * while the main application thread waits.
+		 */
+		@Override
+		public synchronized Message get(long timeout, TimeUnit unit)
+				throws InterruptedException, ExecutionException, TimeoutException {
+			long remainingNanos = unit.toNanos(timeout);
+			long deadline = System.nanoTime() + remainingNanos;
+			while (!done) {
+				if (remainingNanos <= 0) {
+					throw new TimeoutException();
+				}
+
+				TimeUnit.NANOSECONDS.timedWait(this, remainingNanos);
+				remainingNanos = deadline - System.nanoTime();
 			}
 
-			DataGateway dataGateway = (DataGateway) gatewayHolder.gateway;
-			dataGateway.addDataItem(id, dataItem);
+			return getResult();
 		}
-	}
 
-	/**
-	 * Returns the data item.
-	 * 
-	 * @param gatewayId
-	 *            the identifier of a gateway which manages the data item.
-	 * @param id
-	 *            the identifier of data item within the gateway.
-	 * @param type
-	 *            the class of value type.
-	 * @param <T>
-	 *            the value type of data item.
-	 * @return the data item, or null, if the data item with given name does not
-	 *         exist.
-	 */
-	@SuppressWarnings("unchecked")
-	public <T> DataItem<T> getDataItem(String gatewayId, String id, Class<T> type) {
-		DataItem<?> result = null;
-		synchronized (lock) {
-			GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
-			if ((gatewayHolder != null) && (gatewayHolder.gateway instanceof DataGateway)) {
-				result = ((DataGateway) gatewayHolder.gateway).getDataItem(id);
+		/**
+		 * Returns the result of the completed request.
+		 * 
+		 * @return the reply.
+		 * @throws ExecutionException
+		 *             if the request failed.
+		 */
+		private Message getResult() throws ExecutionException {
+			if (cancelled) {
+				throw new CancellationException();
 			}
-		}
 
-		if (result == null) {
-			return null;
-		}
+			if (failure != null) {
+				throw new ExecutionException(failure);
+			}
 
-		if (result.getType().equals(type)) {
-			return (DataItem<T>) result;
-		} else {
-			throw new IllegalArgumentException(
-					"Type of data item " + id + " in gateway \"" + gatewayId + "\" is not compatible with "
-							+ type.getName() + " (its type is " + result.getType().getName() + ").");
+			return reply;
 		}
 	}
 
 	/**
-	 * Returns the data item.
+	 * Code submitted for execution in the main application thread. The
+	 * invocation is registered as pending until it is completed, so that it
+	 * can be cancelled when the application exits.
 	 * 
-	 * @param id
-	 *            the identifier of data item.
-	 * @param type
-	 *            the class of value type.
 	 * @param <T>
-	 *            the value type of data item.
-	 * @return the data item, or null, if the data item with given name does not
-	 *         exist.
-	 */
-	public <T> DataItem<T> getDataItem(String id, Class<T> type) {
-		int slashIdx = id.indexOf('/');
-		if (slashIdx < 0) {
-			return null;
-		}
-
-		return getDataItem(id.substring(0, slashIdx), id.substring(slashIdx + 1), type);
-	}
-
-	/**
-	 * Creates unique topic that can be used for internal messaging.
-	 * 
-	 * @return the topic of the created mailbox.
+	 *            the type of the result.
 	 */
-	public String createMailboxTopic() {
-		return MAILBOX_GATEWAY + "/mb-" + createUniqueId();
-	}
+	private final class Invocation<T> extends FutureTask<T> {
 
-	/**
-	 * Creates unique identifier that can be used as a topic level.
-	 * 
-	 * @return the unique identifier.
-	 */
-	public String createUniqueId() {
-		synchronized (lock) {
-			uidCounter++;
-			return "uid." + Long.toHexString(uidCounter);
+		/**
+		 * Constructs the invocation.
+		 * 
+		 * @param callable
+		 *            the code to be executed.
+		 */
+		private Invocation(Callable<T> callable) {
+			super(callable);
 		}
-	}
 
-	/**
-	 * Assigns a new value to a property. If the value is null, the property
-	 * will be removed.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @param value
-	 *            the new value of the property.
-	 */
-	public void setProperty(String name, Object value) {
-		synchronized (properties) {
-			if (value == null) {
-				properties.remove(name);
-			} else {
-				properties.put(name, value);
-			}
+		@Override
+		protected void done() {
+			pendingInvocations.remove(this);
 		}
 	}
 
 	/**
-	 * Removes a property.
-	 * 
-	 * @param name
-	 *            the name of property.
+	 * Base class for actions that can be put into a work (action) queue.
 	 */
-	public void removeProperty(String name) {
-		synchronized (properties) {
-			properties.remove(name);
-		}
-	}
+	private abstract class Action {
 
-	/**
-	 * Returns value of property.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @return the value of the property or null, if the property is not
-	 *         defined.
-	 */
-	public Object getProperty(String name) {
-		synchronized (properties) {
-			return properties.get(name);
-		}
-	}
+		/**
+		 * The next action in the queue of pending actions.
+		 */
+		volatile Action next;
 
-	/**
-	 * Returns value of property as a string.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @return the property value converted to string.
-	 */
-	public String getPropertyAsString(String name) {
-		Object value = getProperty(name);
-		if (value == null) {
-			return null;
-		} else {
-			return value.toString();
-		}
-	}
+		/**
+		 * The time in nanoseconds when the action was put into a queue of
+		 * pending actions (set only if metrics are enabled).
+		 */
+		long enqueueTime;
 
-	/**
-	 * Returns value of property converted to an integer.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @param defaultValue
-	 *            the default value if conversion failed.
-	 * @return the value converted to integer or the default value if conversion
-	 *         failed.
-	 */
-	public int getPropertyAsInt(String name, int defaultValue) {
-		Object value = getProperty(name);
-		if (value == null) {
-			return defaultValue;
+		/**
+		 * Executes action.
+		 */
+		abstract void execute();
+
+		/**
+		 * Returns the event loop that executes the action.
+		 * 
+		 * @return the event loop.
+		 */
+		EventLoop getEventLoop() {
+			return mainLoop;
 		}
 
-		if (value instanceof Number) {
-			return ((Number) value).intValue();
+		/**
+		 * Returns the lane of the action in the event loop.
+		 * 
+		 * @return the lane.
+		 */
+		ActionLane getLane() {
+			return ActionLane.CONTROL;
 		}
 
-		try {
-			return Integer.parseInt(value.toString().trim());
-		} catch (Exception e) {
-			return defaultValue;
+		/**
+		 * Returns the kind of the action.
+		 * 
+		 * @return the kind of action.
+		 */
+		ActionKind getKind() {
+			return ActionKind.OTHER;
 		}
 	}
 
 	/**
-	 * Returns value of property converted to a double.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @param defaultValue
-	 *            the default value if conversion failed.
-	 * @return the value converted to integer or the default value if conversion
-	 *         failed.
+	 * Kinds of events stored in event slots.
 	 */
-	public double getPropertyAsDouble(String name, double defaultValue) {
-		Object value = getProperty(name);
-		if (value == null) {
-			return defaultValue;
-		}
+	private enum EventKind {
+		/**
+		 * Message received by a gateway.
+		 */
+		RECEIVED_MESSAGE(ActionKind.RECEIVE),
+		/**
+		 * Message with an interned topic received by a gateway.
+		 */
+		RECEIVED_INTERNED_MESSAGE(ActionKind.RECEIVE),
+		/**
+		 * Message received by a gateway that is stored in the message buffer
+		 * of the gateway.
+		 */
+		BUFFERED_MESSAGE(ActionKind.RECEIVE),
+		/**
+		 * Message to be published by a gateway.
+		 */
+		PUBLISH(ActionKind.PUBLISH),
+		/**
+		 * Batch of messages to be published by a gateway.
+		 */
+		PUBLISH_BATCH(ActionKind.PUBLISH),
+		/**
+		 * Request to synchronize value of a data item.
+		 */
+		SYNCHRONIZATION_REQUEST(ActionKind.SYNCHRONIZATION),
+		/**
+		 * Request to change value of a data item.
+		 */
+		CHANGE_REQUEST(ActionKind.CHANGE),
+		/**
+		 * Request to change value of a data item to the latest requested
+		 * value.
+		 */
+		COALESCED_CHANGE_REQUEST(ActionKind.CHANGE);
 
-		if (value instanceof Number) {
-			return ((Number) value).doubleValue();
-		}
+		/**
+		 * The kind of actions realizing events of this kind.
+		 */
+		private final ActionKind actionKind;
 
-		try {
-			return Double.parseDouble(value.toString().trim());
-		} catch (Exception e) {
-			return defaultValue;
+		/**
+		 * Constructs the kind of events.
+		 * 
+		 * @param actionKind
+		 *            the kind of actions realizing events of this kind.
+		 */
+		private EventKind(ActionKind actionKind) {
+			this.actionKind = actionKind;
 		}
 	}
 
 	/**
-	 * Returns value of property converted to a boolean.
-	 * 
-	 * @param name
-	 *            the name of property.
-	 * @param defaultValue
-	 *            the default value if conversion failed.
-	 * @return the value converted to boolean or the default value if conversion
-	 *         failed.
+	 * Typed event that can be put into a queue of pending actions. Pooled
+	 * event slots are preallocated by event loops and they are reused after
+	 * the event is handled, so that frequent events do not create new action
+	 * objects.
 	 */
-	public boolean getPropertyAsBoolean(String name, boolean defaultValue) {
-		Object value = getProperty(name);
-		if (value == null) {
-			return defaultValue;
-		}
+	private final class EventSlot extends Action {
 
-		if (value instanceof Boolean) {
-			return ((Boolean) value).booleanValue();
-		}
+		/**
+		 * The event loop that executes the event.
+		 */
+		private final EventLoop eventLoop;
 
-		String val = value.toString().trim().toLowerCase();
-		if ("yes".equals(val) || "true".equals(val) || "1".equals(val)) {
-			return true;
-		}
+		/**
+		 * Indicates whether the slot is returned to the pool of the event loop
+		 * after the event is handled.
+		 */
+		private final boolean pooled;
 
-		if ("no".equals(val) || "false".equals(val) || "0".equals(val)) {
-			return false;
-		}
+		/**
+		 * The kind of the event.
+		 */
+		private EventKind kind;
 
-		return defaultValue;
-	}
+		/**
+		 * The lane of the event.
+		 */
+		private ActionLane lane;
 
-	/**
-	 * Subscribes to a topic.
-	 * 
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @param messageListener
-	 *            the simple message listener.
-	 * @return the subscription.
-	 */
-	public Subscription subscribe(String topicFilter, SimpleMessageListener messageListener) {
-		if (messageListener == null) {
-			throw new NullPointerException("The message listener cannot be null.");
+		/**
+		 * The gateway related to the event.
+		 */
+		private GatewayHolder gatewayHolder;
+
+		/**
+		 * The message related to the event.
+		 */
+		private Message message;
+
+		/**
+		 * The batch of messages related to the event.
+		 */
+		private List<Message> messages;
+
+		/**
+		 * The identifier of the topic of received message.
+		 */
+		private int topicId;
+
+		/**
+		 * The payload of received message.
+		 */
+		private byte[] payload;
+
+		/**
+		 * The data item related to the event.
+		 */
+		private DataItem<?> dataItem;
+
+		/**
+		 * The requested value of the data item.
+		 */
+		private Object value;
+
+		/**
+		 * Constructs the event slot.
+		 * 
+		 * @param eventLoop
+		 *            the event loop that executes the event.
+		 * @param pooled
+		 *            true, if the slot is returned to the pool of the event
+		 *            loop after the event is handled, false otherwise.
+		 */
+		private EventSlot(EventLoop eventLoop, boolean pooled) {
+			this.eventLoop = eventLoop;
+			this.pooled = pooled;
 		}
 
-		return subscribe(topicFilter, new WrappingSimpleMessageListener(messageListener));
-	}
+		@Override
+		void execute() {
+			switch (kind) {
+			case RECEIVED_MESSAGE:
+				handleMessageReceivedAction(gatewayHolder, message);
+				break;
+			case RECEIVED_INTERNED_MESSAGE:
+				handleMessageReceivedAction(gatewayHolder, topicId, payload);
+				break;
+			case BUFFERED_MESSAGE:
+				handleBufferedMessageAction(gatewayHolder, lane);
+				break;
+			case PUBLISH:
+				gatewayHolder.gateway.onPublish(message);
+				break;
+			case PUBLISH_BATCH:
+				gatewayHolder.gateway.onPublishBatch(messages);
+				break;
+			case SYNCHRONIZATION_REQUEST:
+				dataItem.synchronizeValue();
+				break;
+			case CHANGE_REQUEST:
+				dataItem.requestValueChange(value);
+				break;
+			case COALESCED_CHANGE_REQUEST:
+				dataItem.requestCoalescedValueChange();
+				break;
+			}
+		}
 
-	/**
-	 * Subscribes to a topic.
-	 * 
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @param messageListener
-	 *            the simple message listener.
-	 * @param handlingPriority
-	 *            the handling priority - subscription with greater priority is
-	 *            handled first.
-	 * @return the subscription.
-	 */
-	public Subscription subscribe(String topicFilter, SimpleMessageListener messageListener, int handlingPriority) {
-		if (messageListener == null) {
-			throw new NullPointerException("The message listener cannot be null.");
+		@Override
+		EventLoop getEventLoop() {
+			return eventLoop;
 		}
 
-		return subscribe(topicFilter, new WrappingSimpleMessageListener(messageListener), handlingPriority);
-	}
+		@Override
+		ActionLane getLane() {
+			return lane;
+		}
 
-	/**
-	 * Subscribes to a topic.
-	 * 
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @param messageListener
-	 *            the message listener.
-	 * @return the subscription.
-	 */
-	public Subscription subscribe(String topicFilter, MessageListener messageListener) {
-		return subscribe(topicFilter, messageListener, 0);
+		@Override
+		ActionKind getKind() {
+			return kind.actionKind;
+		}
+
+		/**
+		 * Releases references to event data.
+		 */
+		private void clear() {
+			gatewayHolder = null;
+			message = null;
+			messages = null;
+			payload = null;
+			dataItem = null;
+			value = null;
+		}
 	}
 
 	/**
-	 * Subscribes to a topic.
-	 * 
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @param messageListener
-	 *            the message listener.
-	 * @param handlingPriority
-	 *            the handling priority - subscription with greater priority is
-	 *            handled first.
-	 * @return the subscription.
+	 * Lock-free multi-producer single-consumer queue of pending actions
+	 * (actions are linked by their field {@link Action#next}).
 	 */
-	public Subscription subscribe(String topicFilter, MessageListener messageListener, int handlingPriority) {
-		// basic checks
-		if (messageListener == null) {
-			throw new NullPointerException("The message listener cannot be null.");
-		}
-
-		if (!isValidTopicFilter(topicFilter)) {
-			throw new MessagingException("Malformed topic filter.");
-		}
+	private final class ActionQueue {
 
-		// create subscription
-		SubscriptionImpl subscription = new SubscriptionImpl(topicFilter, messageListener, handlingPriority);
+		/**
+		 * The total number of submitted actions. The counter is incremented
+		 * before the action is linked to the queue.
+		 */
+		private final AtomicLong totalActionCount = new AtomicLong();
 
-		// retrieve topic head as a gateway id
-		String topicHead = getTopicHead(topicFilter);
+		/**
+		 * The number of polled actions. The counter is modified only by the
+		 * consumer.
+		 */
+		private final AtomicLong polledActionCount = new AtomicLong();
 
-		// retrieve "gateway" (localized) part of the topic filter
-		String localizedTopicFilter = createTopicFilterWithoutHead(topicFilter);
-		if (localizedTopicFilter == null) {
-			throw new MessagingException("Invalid topic filter: no subtopic after gateway.");
-		}
+		/**
+		 * The last action in the queue.
+		 */
+		private final AtomicReference<Action> tail;
 
-		// determine whether the topic filter is simple
-		boolean simpleTopicFilter = detectSimpleTopicFilter(localizedTopicFilter);
+		/**
+		 * The last polled action (or the initial stub) in the queue. The head
+		 * is accessed only by the consumer.
+		 */
+		private Action head;
 
-		synchronized (lock) {
-			// get topic filters and gateway related to the topic filter
-			Map<String, TopicFilter> topicFilters;
-			GatewayHolder sourceGatewayHolder;
-			if (SINGLE_LEVEL_WILDCARD.equals(topicHead) || MULTI_LEVEL_WILDCARD.equals(topicHead)) {
-				sourceGatewayHolder = null;
-				topicFilters = simpleTopicFilter ? simpleGlobalTopicFilters : wildcardGlobalTopicFilters;
-			} else {
-				sourceGatewayHolder = gatewayHolders.get(topicHead);
-				if (sourceGatewayHolder == null) {
-					throw new MessagingException("Invalid topic filter: Unknown gateway \"" + topicHead + "\".");
+		/**
+		 * Constructs the queue.
+		 */
+		private ActionQueue() {
+			head = new Action() {
+				@Override
+				void execute() {
+					// stub action is never executed
 				}
+			};
+			tail = new AtomicReference<>(head);
+		}
 
-				topicFilters = simpleTopicFilter ? sourceGatewayHolder.simpleTopicFilters
-						: sourceGatewayHolder.wildcardTopicFilters;
+		/**
+		 * Adds a new action to the queue.
+		 * 
+		 * @param action
+		 *            the action.
+		 */
+		private void offer(Action action) {
+			if (metricsEnabled) {
+				action.enqueueTime = System.nanoTime();
 			}
 
-			// get or create topic filter
-			TopicFilter filter = topicFilters.get(localizedTopicFilter);
+			// the counter is incremented first, so that no scheduled action
+			// submitted later precedes the action
+			totalActionCount.incrementAndGet();
+			Action previousTail = tail.getAndSet(action);
+			previousTail.next = action;
+		}
 
-			if (filter == null) {
-				// if filter does not exist, create the filter
-				filter = new TopicFilter(localizedTopicFilter);
-				topicFilters.put(localizedTopicFilter, filter);
+		/**
+		 * Retrieves and removes the first action in the queue.
+		 * 
+		 * @return the action, or null, if the queue is empty.
+		 */
+		private Action poll() {
+			Action currentHead = head;
+			Action next = currentHead.next;
+			if (next == null) {
+				if (tail.get() == currentHead) {
+					return null;
+				}
 
-				// put appropriate subscription changes to the working queue
-				if (sourceGatewayHolder == null) {
-					for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
-						enqueueAction(
-								createSubscriptionChangeAction(gatewayHolder.gateway, localizedTopicFilter, true));
-					}
-				} else {
-					enqueueAction(
-							createSubscriptionChangeAction(sourceGatewayHolder.gateway, localizedTopicFilter, true));
+				// a producer has swapped the tail, but it has not linked the
+				// action yet
+				while ((next = currentHead.next) == null) {
+					Thread.yield();
 				}
 			}
 
-			// add subscription to topic filter
-			filter.subscriptions.add(subscription);
-			return subscription;
+			// the polled action becomes the new stub of the queue, the previous
+			// stub can be reused
+			currentHead.next = null;
+			head = next;
+			if ((currentHead instanceof EventSlot) && ((EventSlot) currentHead).pooled) {
+				EventSlot slot = (EventSlot) currentHead;
+				slot.eventLoop.releaseSlot(slot);
+			}
+			polledActionCount.lazySet(polledActionCount.get() + 1);
+			return next;
 		}
-	}
 
-	/**
-	 * Creates action that changes subscription.
-	 * 
-	 * @param gatewayHolder
-	 *            the gateway holder
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @param subscribe
-	 *            true, for subscribe, false for unsubscribe.
-	 * @return the action.
-	 */
-	private Action createSubscriptionChangeAction(final Gateway gateway, final String topicFilter,
-			final boolean subscribe) {
-		return new Action() {
-			@Override
-			void execute() {
-				if (subscribe) {
-					gateway.onAddTopicFilter(topicFilter);
-				} else {
-					gateway.onRemoveTopicFilter(topicFilter);
-				}
-			}
-		};
+		/**
+		 * Returns whether the queue is empty. The method is invoked by the
+		 * consumer.
+		 * 
+		 * @return true, if the queue is empty, false otherwise.
+		 */
+		private boolean isEmpty() {
+			return tail.get() == head;
+		}
+
+		/**
+		 * Returns the (approximate) number of actions in the queue.
+		 * 
+		 * @return the number of actions.
+		 */
+		private long size() {
+			return totalActionCount.get() - polledActionCount.get();
+		}
 	}
 
 	/**
-	 * Closes a subscription.
-	 * 
-	 * @param subscription
-	 *            the subscription.
+	 * Event loop with a queue of pending actions for each lane.
 	 */
-	private void closeSubscription(SubscriptionImpl subscription) {
-		String topicFilter = subscription.topicFilter;
+	private final class EventLoop {
 
-		// retrieve topic head as a gateway id
-		String topicHead = getTopicHead(topicFilter);
-		// retrieve "gateway" (localized) part of the topic filter
-		String localizedTopicFilter = createTopicFilterWithoutHead(topicFilter);
-		// detect whether the topic filter is simple, i.e., without wild-cards
-		boolean simpleTopicFilter = detectSimpleTopicFilter(localizedTopicFilter);
+		/**
+		 * The index of the event loop.
+		 */
+		private final int index;
 
-		synchronized (lock) {
-			// get topic filters and gateway related to the topic filter
-			Map<String, TopicFilter> topicFilters;
-			GatewayHolder sourceGatewayHolder;
-			if (SINGLE_LEVEL_WILDCARD.equals(topicHead) || MULTI_LEVEL_WILDCARD.equals(topicHead)) {
-				sourceGatewayHolder = null;
-				topicFilters = simpleTopicFilter ? simpleGlobalTopicFilters : wildcardGlobalTopicFilters;
-			} else {
-				sourceGatewayHolder = gatewayHolders.get(topicHead);
-				if (sourceGatewayHolder == null) {
-					return;
-				}
+		/**
+		 * The thread that executes the event loop.
+		 */
+		private final Thread thread;
+
+		/**
+		 * Queues of pending actions indexed by ordinals of lanes.
+		 */
+		private final ActionQueue[] lanes = new ActionQueue[ActionLane.values().length];
+
+		/**
+		 * Recorders of times spent by actions in queues indexed by ordinals of
+		 * kinds of actions.
+		 */
+		private final HistogramRecorder[] waitTimes = new HistogramRecorder[ActionKind.values().length];
+
+		/**
+		 * Recorders of execution times of actions indexed by ordinals of kinds
+		 * of actions.
+		 */
+		private final HistogramRecorder[] executionTimes = new HistogramRecorder[ActionKind.values().length];
+
+		/**
+		 * The maximal number of pending actions observed at the beginning of
+		 * an iteration of the event loop. The value is modified only in the
+		 * thread of the event loop.
+		 */
+		private volatile long peakQueueDepth;
+
+		/**
+		 * Indicates that the thread of the event loop is parked or it is going
+		 * to be parked.
+		 */
+		private volatile boolean parked;
+
+		/**
+		 * The time in nanoseconds when execution of the current action
+		 * started, or 0, if no action is executed (updated only if slow
+		 * actions are detected).
+		 */
+		private volatile long actionStartTime;
+
+		/**
+		 * The currently executed action (updated only if slow actions are
+		 * detected).
+		 */
+		private volatile Action currentAction;
+
+		/**
+		 * The topic filter of subscription whose message listener is
+		 * executed, or null, if no message listener is executed (updated only
+		 * if slow actions are detected).
+		 */
+		private volatile String currentTopicFilter;
+
+		/**
+		 * Ring of free preallocated event slots. Free slots are the slots with
+		 * sequence numbers from {@link #claimedSlots} (inclusive) to
+		 * {@link #releasedSlots} (exclusive).
+		 */
+		private final EventSlot[] freeSlots = new EventSlot[EVENT_SLOT_COUNT];
+
+		/**
+		 * The number of event slots claimed by producers.
+		 */
+		private final AtomicLong claimedSlots = new AtomicLong();
+
+		/**
+		 * The number of event slots released to the ring. The value is
+		 * modified only in the thread of the event loop.
+		 */
+		private volatile long releasedSlots;
+
+		/**
+		 * Monitor of producers blocked by the full action queue of the event
+		 * loop.
+		 */
+		private final Object capacityMonitor = new Object();
 
-				topicFilters = simpleTopicFilter ? sourceGatewayHolder.simpleTopicFilters
-						: sourceGatewayHolder.wildcardTopicFilters;
+		/**
+		 * The number of producers waiting on {@link #capacityMonitor}.
+		 */
+		private volatile int blockedProducerCount;
+
+		/**
+		 * Constructs the event loop executed in a dedicated thread.
+		 * 
+		 * @param index
+		 *            the index of the event loop.
+		 */
+		private EventLoop(int index) {
+			this(index, null);
+		}
+
+		/**
+		 * Constructs the event loop.
+		 * 
+		 * @param index
+		 *            the index of the event loop.
+		 * @param thread
+		 *            the thread that executes the event loop, or null, if a
+		 *            dedicated thread should be created.
+		 */
+		private EventLoop(int index, Thread thread) {
+			this.index = index;
+			if (thread == null) {
+				thread = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						runSecondaryEventLoop(EventLoop.this);
+					}
+				}, EVENT_LOOP_THREAD_NAME + index);
 			}
+			this.thread = thread;
 
-			// get topic filter
-			TopicFilter filter = topicFilters.get(localizedTopicFilter);
-			if (filter == null) {
-				// no active filter for the subscription
-				return;
+			for (int i = 0; i < lanes.length; i++) {
+				lanes[i] = new ActionQueue();
 			}
 
-			if (!filter.subscriptions.remove(subscription)) {
-				// no subscription to remove
-				return;
+			for (int i = 0; i < waitTimes.length; i++) {
+				waitTimes[i] = new HistogramRecorder();
+				executionTimes[i] = new HistogramRecorder();
 			}
 
-			if (!filter.subscriptions.isEmpty()) {
-				// filter contains other subscriptions
-				return;
+			for (int i = 0; i < freeSlots.length; i++) {
+				freeSlots[i] = new EventSlot(this, true);
 			}
+			releasedSlots = freeSlots.length;
+		}
 
-			// remove empty topic filter
-			topicFilters.remove(localizedTopicFilter);
+		/**
+		 * Claims a free event slot. If all preallocated slots are in use, a new
+		 * slot that is not returned to the pool is created.
+		 * 
+		 * @param kind
+		 *            the kind of the event.
+		 * @param lane
+		 *            the lane of the event.
+		 * @return the event slot.
+		 */
+		private EventSlot claimSlot(EventKind kind, ActionLane lane) {
+			EventSlot slot;
+			while (true) {
+				long claimed = claimedSlots.get();
+				if (claimed >= releasedSlots) {
+					slot = new EventSlot(this, false);
+					break;
+				}
 
-			// put appropriate subscription changes to the working queue
-			if (sourceGatewayHolder == null) {
-				for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
-					enqueueAction(createSubscriptionChangeAction(gatewayHolder.gateway, localizedTopicFilter, false));
+				// the slot cannot be overwritten until the sequence number is
+				// claimed, hence it is read before the claim
+				slot = freeSlots[(int) claimed & (EVENT_SLOT_COUNT - 1)];
+				if (claimedSlots.compareAndSet(claimed, claimed + 1)) {
+					break;
 				}
-			} else {
-				enqueueAction(createSubscriptionChangeAction(sourceGatewayHolder.gateway, localizedTopicFilter, false));
 			}
+
+			slot.kind = kind;
+			slot.lane = lane;
+			return slot;
 		}
-	}
 
-	/**
-	 * Publishes a message.
-	 * 
-	 * @param message
-	 *            the message to be published.
-	 * 
-	 */
-	public void publish(Message message) {
-		enqueueAction(createPublishAction(message));
-	}
+		/**
+		 * Returns a handled event slot to the ring of free slots. The method is
+		 * invoked in the thread of the event loop.
+		 * 
+		 * @param slot
+		 *            the event slot.
+		 */
+		private void releaseSlot(EventSlot slot) {
+			slot.clear();
+			long released = releasedSlots;
+			freeSlots[(int) released & (EVENT_SLOT_COUNT - 1)] = slot;
+			releasedSlots = released + 1;
+		}
 
-	/**
-	 * Publishes a message with a delay.
-	 * 
-	 * @param message
-	 *            the message to be published.
-	 * @param delay
+		/**
+		 * Adds a new action to the queue of its lane.
+		 * 
+		 * @param action
+		 *            the action.
+		 */
+		private void enqueue(Action action) {
+			lanes[action.getLane().ordinal()].offer(action);
+			wakeUp();
+		}
+
+		/**
+		 * Returns the (approximate) number of pending actions in all lanes.
+		 * 
+		 * @return the number of pending actions.
+		 */
+		private long getPendingActionCount() {
+			long result = 0;
+			for (ActionQueue lane : lanes) {
+				result += lane.size();
+			}
+
+			return result;
+		}
+
+		/**
+		 * Updates the peak number of pending actions. The method is invoked in
+		 * the thread of the event loop.
+		 */
+		private void updatePeakQueueDepth() {
+			long queueDepth = getPendingActionCount();
+			if (queueDepth > peakQueueDepth) {
+				peakQueueDepth = queueDepth;
+			}
+		}
+
+		/**
+		 * Returns the total number of actions submitted to lanes with higher
+		 * priority than scheduled actions.
+		 * 
+		 * @return the number of submitted actions.
+		 */
+		private long getPriorityActionCount() {
+			return lanes[ActionLane.SYSTEM.ordinal()].totalActionCount.get()
+					+ lanes[ActionLane.CONTROL.ordinal()].totalActionCount.get();
+		}
+
+		/**
+		 * Returns whether there is a pending action. The method is invoked in
+		 * the thread of the event loop.
+		 * 
+		 * @return true, if there is a pending action, false otherwise.
+		 */
+		private boolean hasPendingAction() {
+			for (ActionQueue lane : lanes) {
+				if (!lane.isEmpty()) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Blocks the calling thread until the number of pending actions is
+		 * less than the capacity or exit of the application is requested.
+		 * 
+		 * @param capacity
+		 *            the capacity of the action queue.
+		 */
+		private void awaitCapacity(int capacity) {
+			synchronized (capacityMonitor) {
+				blockedProducerCount++;
+				try {
+					while ((getPendingActionCount() >= capacity) && !exitRequested) {
+						capacityMonitor.wait(CAPACITY_WAIT_MILLIS);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					blockedProducerCount--;
+				}
+			}
+		}
+
+		/**
+		 * Wakes up a producer blocked by the full action queue, if there is
+		 * such a producer. The method is invoked in the thread of the event
+		 * loop whenever an action is taken from the queue.
+		 */
+		private void signalCapacity() {
+			if (blockedProducerCount > 0) {
+				synchronized (capacityMonitor) {
+					capacityMonitor.notify();
+				}
+			}
+		}
+
+		/**
+		 * Wakes up all producers blocked by the full action queue.
+		 */
+		private void releaseBlockedProducers() {
+			synchronized (capacityMonitor) {
+				capacityMonitor.notifyAll();
+			}
+		}
+
+		/**
+		 * Wakes up the thread of the event loop, if it is parked.
+		 */
+		private void wakeUp() {
+			if (parked) {
+				LockSupport.unpark(thread);
+			}
+		}
+	}
+
+	/**
+	 * Persistent storage utilized to restore and save states of data items.
+	 */
+	private PersistentStorage persistentStorage;
+
+	/**
+	 * Autosave period in seconds, zero or negative value, if autosave is
+	 * disabled.
+	 */
+	private int autosavePeriodInSeconds = DEFAULT_AUTOSAVE_PERIOD;
+
+	/**
+	 * Maximal number of topics per gateway with cached matching subscriptions.
+	 */
+	private int subscriberCacheSize = DEFAULT_SUBSCRIBER_CACHE_SIZE;
+
+	/**
+	 * Maximal number of actions executed in a single iteration of the event
+	 * loop.
+	 */
+	private int actionBatchSize = DEFAULT_ACTION_BATCH_SIZE;
+
+	/**
+	 * Maximal number of pending actions of an event loop when received
+	 * messages are accepted without applying overload policies of gateways,
+	 * zero or negative value, if action queues are unbounded.
+	 */
+	private int actionQueueCapacity;
+
+	/**
+	 * Indicates whether metrics of event loops are collected.
+	 */
+	private volatile boolean metricsEnabled;
+
+	/**
+	 * Period in seconds of publication of metrics as system messages, zero or
+	 * negative value, if metrics are not published.
+	 */
+	private int metricsPeriodInSeconds;
+
+	/**
+	 * The number of scheduled actions observed at the beginning of the last
+	 * iteration of the main event loop (updated only if metrics are enabled).
+	 */
+	private volatile int scheduledActionCount;
+
+	/**
+	 * Time in nanoseconds before execution of the next scheduled action, when
+	 * the idle main application thread stops parking and busy-waits for the
+	 * action, zero, if the thread only parks.
+	 */
+	private long timerSpinNanos;
+
+	/**
+	 * Recorder of delays (in nanoseconds) between the times when scheduled
+	 * actions should be executed and the times of their execution (used only
+	 * if metrics are enabled).
+	 */
+	private final HistogramRecorder schedulingJitter = new HistogramRecorder();
+
+	/**
+	 * Execution time in nanoseconds after which an action is reported as a
+	 * slow action, zero, if slow actions are not detected.
+	 */
+	private volatile long slowActionBudgetNanos;
+
+	/**
+	 * The number of detected slow actions.
+	 */
+	private final AtomicLong slowActionCount = new AtomicLong();
+
+	/**
+	 * The numbers of detected slow actions by topic filters of subscriptions
+	 * (or by kinds of actions, if an action is not a message listener).
+	 */
+	private final Map<String, AtomicLong> slowActionCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * Holders of attached messaging gateways.
+	 */
+	private final Map<String, GatewayHolder> gatewayHolders = new HashMap<>();
+
+	/**
+	 * Immutable lookup table of gateways created when the application is
+	 * launched, or null, if the application has not been launched yet.
+	 */
+	private volatile FrozenLookup<GatewayHolder> frozenGatewayHolders;
+
+	/**
+	 * Gateway for system messages.
+	 */
+	private final SystemGateway systemGateway;
+
+	/**
+	 * Gateway for internal mailbox messaging.
+	 */
+	private final MailboxGateway mailboxGateway;
+
+	/**
+	 * Index of topic filters that are not related to a particular gateway. The
+	 * index is immutable, it is replaced when the topic filters change.
+	 */
+	private volatile TopicFilterIndex globalTopicFilters = TopicFilterIndex.EMPTY;
+
+	/**
+	 * Registry of interned topics of all gateways.
+	 */
+	private final TopicRegistry topicRegistry = new TopicRegistry(MAX_REGISTERED_TOPICS);
+
+	/**
+	 * The main event loop executed in the main application thread. The main
+	 * event loop executes scheduled actions and actions of data items and
+	 * gateways that are not assigned to other event loops.
+	 */
+	private final EventLoop mainLoop;
+
+	/**
+	 * Event loops of the application (the main event loop is the first one).
+	 * The array is never modified, it is replaced when the event loops change.
+	 */
+	private volatile EventLoop[] eventLoops;
+
+	/**
+	 * Timing wheel with schedules of scheduled actions. The wheel is accessed
+	 * only in the main application thread.
+	 */
+	private final TimingWheel timingWheel = new TimingWheel(
+			MonotonicClock.currentTimeNanos() / TIMER_TICK_NANOS);
+
+	/**
+	 * Schedules that have been submitted or cancelled and whose change has not
+	 * been applied to the timing wheel yet.
+	 */
+	private final Queue<Schedule> pendingSchedules = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Internal counter for generating unique identifiers.
+	 */
+	private long uidCounter = 0;
+
+	/**
+	 * Internal map that stores key-value pairs associated with the application.
+	 */
+	private final Map<String, Object> properties = new HashMap<>();
+
+	/**
+	 * List of modules associated to this application.
+	 */
+	private final List<Module> modules = new ArrayList<Module>();
+
+	/**
+	 * List of registered shutdown hooks.
+	 */
+	private final List<Runnable> shutdownHooks = new ArrayList<>();
+
+	/**
+	 * Indicates that initialization of modules started and it is not possible
+	 * to add new modules to the application.
+	 */
+	private boolean immutableModules;
+
+	/**
+	 * Indicates whether the application has been launched.
+	 */
+	private boolean launched;
+
+	/**
+	 * The main application thread (used as serialization and event handling
+	 * thread).
+	 */
+	private final Thread applicationThread;
+
+	/**
+	 * Indicates that exit of the application is requested.
+	 */
+	private volatile boolean exitRequested;
+
+	/**
+	 * Indicates that the application has been finalized.
+	 */
+	private volatile boolean finalized;
+
+	/**
+	 * Synchronization lock.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Synchronization lock controlling the finalization of the application.
+	 */
+	private final Object finalizationLock = new Object();
+
+	/**
+	 * Executor service to be used by gateways, or null, if the executor
+	 * service has not been created yet.
+	 */
+	private volatile ExecutorService executorService;
+
+	/**
+	 * The implementation of the executor service.
+	 */
+	private ExecutorMode executorMode = ExecutorMode.CACHED;
+
+	/**
+	 * The maximal number of threads of the work-stealing executor service.
+	 */
+	private int executorParallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Executor that delegates to the executor service of the application
+	 * (the executor service is created when a task is executed for the first
+	 * time).
+	 */
+	private final Executor applicationExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			getExecutorService().execute(command);
+		}
+	};
+
+	/**
+	 * The number of messages dropped due to overflow of mailboxes of
+	 * asynchronous subscriptions.
+	 */
+	private final AtomicLong droppedMailboxMessageCount = new AtomicLong();
+
+	/**
+	 * Counter for generating identifiers of requests.
+	 */
+	private final AtomicLong requestCounter = new AtomicLong();
+
+	/**
+	 * Requests waiting for a reply by identifiers of requests.
+	 */
+	private final Map<Long, PendingRequest> pendingRequests = new ConcurrentHashMap<>();
+
+	/**
+	 * Invocations submitted to the main application thread that are not
+	 * completed.
+	 */
+	private final Set<Invocation<?>> pendingInvocations = Collections
+			.newSetFromMap(new ConcurrentHashMap<Invocation<?>, Boolean>());
+
+	/**
+	 * Constructs the application.
+	 */
+	public Application() {
+		// construct the serialization and event handling thread
+		applicationThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				// execute the application loop
+				executeApplication();
+
+				// notify that the application is finalized
+				synchronized (finalizationLock) {
+					finalized = true;
+					finalizationLock.notifyAll();
+				}
+
+				// terminate JVM
+				System.exit(0);
+			}
+		}, THREAD_NAME);
+
+		// create the main event loop
+		mainLoop = new EventLoop(0, applicationThread);
+		eventLoops = new EventLoop[] { mainLoop };
+
+		// create system gateway
+		systemGateway = new SystemGateway();
+		attachGateway(SYSTEM_GATEWAY, systemGateway, mainLoop, ActionLane.SYSTEM);
+
+		// create mailbox gateway
+		mailboxGateway = new MailboxGateway();
+		attachGateway(MAILBOX_GATEWAY, mailboxGateway, mainLoop, ActionLane.CONTROL);
+	}
+
+	/**
+	 * Adds a module to the application.
+	 * 
+	 * @param module
+	 *            the module.
+	 */
+	public void addModule(Module module) {
+		if (module == null) {
+			throw new NullPointerException("Module cannot be null.");
+		}
+
+		synchronized (lock) {
+			if ((immutableModules) || (launched)) {
+				throw new IllegalStateException("It is not possible to add a module to the launched application.");
+			}
+
+			module.attachToApplication(this);
+			modules.add(module);
+		}
+	}
+
+	/**
+	 * Adds a gateway to the application.
+	 * 
+	 * @param id
+	 *            the identifier of the gateway.
+	 * @param gateway
+	 *            the gateway.
+	 */
+	public void addGateway(String id, Gateway gateway) {
+		addGateway(id, gateway, 0);
+	}
+
+	/**
+	 * Adds a gateway to the application and assigns the gateway to an event
+	 * loop. Publications, received messages (including execution of message
+	 * listeners) and subscription changes of the gateway are handled in the
+	 * thread of the event loop. Data gateways must be assigned to the main
+	 * event loop.
+	 * 
+	 * @see Application#setEventLoopCount(int)
+	 * @param id
+	 *            the identifier of the gateway.
+	 * @param gateway
+	 *            the gateway.
+	 * @param eventLoop
+	 *            the index of event loop, 0 for the main event loop.
+	 */
+	public void addGateway(String id, Gateway gateway, int eventLoop) {
+		if (gateway == null) {
+			throw new NullPointerException("Gateway cannot be null.");
+		}
+
+		if (!Gateway.isValidId(id)) {
+			throw new IllegalArgumentException("Malformed/invalid gateway identifier.");
+		}
+
+		if ((eventLoop != 0) && (gateway instanceof DataGateway)) {
+			throw new IllegalArgumentException("Data gateway must be assigned to the main event loop.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to add a gateway to the launched application.");
+			}
+
+			if ((eventLoop < 0) || (eventLoop >= eventLoops.length)) {
+				throw new IllegalArgumentException("Invalid index of event loop.");
+			}
+
+			if (gatewayHolders.containsKey(id)) {
+				throw new IllegalArgumentException("Duplicated gateway identifier \"" + id + "\".");
+			}
+
+			attachGateway(id, gateway, eventLoops[eventLoop], ActionLane.BULK);
+		}
+	}
+
+	/**
+	 * Attaches a gateway to the application.
+	 * 
+	 * @param id
+	 *            the identifier of the gateway.
+	 * @param gateway
+	 *            the gateway.
+	 * @param eventLoop
+	 *            the event loop of the gateway.
+	 * @param lane
+	 *            the default lane of messages of the gateway.
+	 */
+	private void attachGateway(String id, Gateway gateway, EventLoop eventLoop, ActionLane lane) {
+		gateway.attachToApplication(id, this);
+		gateway.setEventLoopThread(eventLoop.thread);
+		gatewayHolders.put(id, new GatewayHolder(gateway, topicRegistry.createNamespace(id), eventLoop, lane));
+	}
+
+	/**
+	 * Sets the number of event loops that handle actions of the application.
+	 * By default, all actions are handled by the main event loop in the main
+	 * application thread. Additional event loops are executed in dedicated
+	 * threads and gateways can be assigned to them by the method
+	 * {@link Application#addGateway(String, Gateway, int)}. Actions of a
+	 * gateway are handled in order of their submission, actions of gateways
+	 * assigned to different event loops are handled concurrently. Scheduled
+	 * actions, data items and system events are always handled by the main
+	 * event loop.
+	 * 
+	 * @param count
+	 *            the number of event loops (at least 1).
+	 */
+	public void setEventLoopCount(int count) {
+		if (count < 1) {
+			throw new IllegalArgumentException("The number of event loops must be positive.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to set event loops of launched application.");
+			}
+
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				if (gatewayHolder.eventLoop.index >= count) {
+					throw new IllegalStateException("The event loop " + gatewayHolder.eventLoop.index
+							+ " is used by the gateway \"" + gatewayHolder.gateway.getId() + "\".");
+				}
+			}
+
+			EventLoop[] newEventLoops = Arrays.copyOf(eventLoops, count);
+			for (int i = eventLoops.length; i < count; i++) {
+				newEventLoops[i] = new EventLoop(i);
+			}
+			eventLoops = newEventLoops;
+		}
+	}
+
+	/**
+	 * Returns the number of event loops that handle actions of the
+	 * application.
+	 * 
+	 * @see Application#setEventLoopCount(int)
+	 * @return the number of event loops.
+	 */
+	public int getEventLoopCount() {
+		synchronized (lock) {
+			return eventLoops.length;
+		}
+	}
+
+	/**
+	 * Returns associated gateway.
+	 * 
+	 * @param id
+	 *            the identifier of the gateway.
+	 * @return the gateway or null, if such a gateway does not exist.
+	 */
+	public Gateway getGateway(String id) {
+		GatewayHolder holder = findGatewayHolder(id);
+		return (holder != null) ? holder.gateway : null;
+	}
+
+	/**
+	 * Returns the gateway holder of a gateway. After the application is
+	 * launched, the gateway is found without locking.
+	 * 
+	 * @param id
+	 *            the identifier of the gateway.
+	 * @return the gateway holder, or null, if such a gateway does not exist.
+	 */
+	private GatewayHolder findGatewayHolder(String id) {
+		FrozenLookup<GatewayHolder> frozenHolders = frozenGatewayHolders;
+		if (frozenHolders != null) {
+			return frozenHolders.get(id);
+		}
+
+		synchronized (lock) {
+			return gatewayHolders.get(id);
+		}
+	}
+
+	/**
+	 * Adds a data item to the application.
+	 * 
+	 * @param gatewayId
+	 *            the identifier of a gateway which will manage the data item.
+	 *            The gateway must be instance of the class {@link DataGateway
+	 *            DataGateway}.
+	 * @param id
+	 *            the identifier of data item within the gateway.
+	 * @param dataItem
+	 *            the data item.
+	 */
+	public void addDataItem(String gatewayId, String id, DataItem<?> dataItem) {
+		if (dataItem == null) {
+			throw new NullPointerException("Data item cannot be null.");
+		}
+
+		if (!Gateway.isValidId(gatewayId)) {
+			throw new IllegalArgumentException("Malformed/invalid gateway identifier.");
+		}
+
+		if (!DataItem.isValidId(id)) {
+			throw new IllegalArgumentException("Malformed/invalid identifier of data item.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to add a data item to the launched application.");
+			}
+
+			GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
+			if (gatewayHolder == null) {
+				throw new IllegalArgumentException("Unknown gateway \"" + gatewayId + "\".");
+			}
+
+			if (!(gatewayHolder.gateway instanceof DataGateway)) {
+				throw new IllegalArgumentException("The \"" + gatewayId + "\" is not a data gateway.");
+			}
+
+			DataGateway dataGateway = (DataGateway) gatewayHolder.gateway;
+			dataGateway.addDataItem(id, dataItem);
+		}
+	}
+
+	/**
+	 * Returns the data item.
+	 * 
+	 * @param gatewayId
+	 *            the identifier of a gateway which manages the data item.
+	 * @param id
+	 *            the identifier of data item within the gateway.
+	 * @param type
+	 *            the class of value type.
+	 * @param <T>
+	 *            the value type of data item.
+	 * @return the data item, or null, if the data item with given name does not
+	 *         exist.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> DataItem<T> getDataItem(String gatewayId, String id, Class<T> type) {
+		DataItem<?> result = null;
+		GatewayHolder gatewayHolder = findGatewayHolder(gatewayId);
+		if ((gatewayHolder != null) && (gatewayHolder.gateway instanceof DataGateway)) {
+			result = ((DataGateway) gatewayHolder.gateway).getDataItem(id);
+		}
+
+		if (result == null) {
+			return null;
+		}
+
+		if (result.getType().equals(type)) {
+			return (DataItem<T>) result;
+		} else {
+			throw new IllegalArgumentException(
+					"Type of data item " + id + " in gateway \"" + gatewayId + "\" is not compatible with "
+							+ type.getName() + " (its type is " + result.getType().getName() + ").");
+		}
+	}
+
+	/**
+	 * Returns the data item.
+	 * 
+	 * @param id
+	 *            the identifier of data item.
+	 * @param type
+	 *            the class of value type.
+	 * @param <T>
+	 *            the value type of data item.
+	 * @return the data item, or null, if the data item with given name does not
+	 *         exist.
+	 */
+	public <T> DataItem<T> getDataItem(String id, Class<T> type) {
+		int slashIdx = id.indexOf('/');
+		if (slashIdx < 0) {
+			return null;
+		}
+
+		return getDataItem(id.substring(0, slashIdx), id.substring(slashIdx + 1), type);
+	}
+
+	/**
+	 * Creates unique topic that can be used for internal messaging.
+	 * 
+	 * @return the topic of the created mailbox.
+	 */
+	public String createMailboxTopic() {
+		return MAILBOX_GATEWAY + "/mb-" + createUniqueId();
+	}
+
+	/**
+	 * Publishes a request and returns a future of the reply. The published
+	 * message is the request message with a unique reply topic (see
+	 * {@link Message#getReplyTopic()}). The first message published to the
+	 * reply topic completes the future. All replies are routed by the mailbox
+	 * gateway to pending requests according to the identifiers in reply
+	 * topics, i.e., no subscription is created for a request. If no reply is
+	 * published within the timeout, the future fails with
+	 * {@link TimeoutException} as the cause.
+	 * 
+	 * <p>
+	 * Replies are handled in the main application thread, hence the future
+	 * cannot be waited for without a timeout in a thread of an event loop.
+	 * 
+	 * @param message
+	 *            the request message.
+	 * @param timeout
+	 *            the maximal time to wait for a reply.
+	 * @param unit
+	 *            the time unit of the timeout parameter.
+	 * @return the future of the reply message.
+	 */
+	public Future<Message> request(Message message, long timeout, TimeUnit unit) {
+		if (message == null) {
+			throw new NullPointerException("Message cannot be null.");
+		}
+
+		if (unit == null) {
+			throw new NullPointerException("Time unit cannot be null.");
+		}
+
+		final long requestId = requestCounter.incrementAndGet();
+		final PendingRequest pendingRequest = new PendingRequest(requestId);
+		pendingRequests.put(requestId, pendingRequest);
+
+		pendingRequest.timeoutTimer = invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				if (pendingRequests.remove(requestId) != null) {
+					pendingRequest.complete(null, new TimeoutException("No reply received within the timeout."));
+				}
+			}
+		}, timeout, unit);
+
+		String replyTopic = MAILBOX_GATEWAY + "/" + REPLY_MAILBOX_PREFIX + Long.toHexString(requestId);
+		try {
+			publish(message.cloneWithReplyTopic(replyTopic));
+		} catch (RuntimeException e) {
+			pendingRequests.remove(requestId);
+			pendingRequest.timeoutTimer.cancel();
+			throw e;
+		}
+
+		return pendingRequest;
+	}
+
+	/**
+	 * Completes the pending request to which a reply belongs. The method is
+	 * invoked by the mailbox gateway in the main application thread.
+	 * 
+	 * @param reply
+	 *            the reply with localized topic.
+	 */
+	void handleReply(Message reply) {
+		long requestId;
+		try {
+			requestId = Long.parseLong(reply.getTopic().substring(REPLY_MAILBOX_PREFIX.length()), 16);
+		} catch (NumberFormatException e) {
+			return;
+		}
+
+		PendingRequest pendingRequest = pendingRequests.remove(requestId);
+		if (pendingRequest != null) {
+			pendingRequest.timeoutTimer.cancel();
+			pendingRequest.complete(reply.cloneWithNewTopic(MAILBOX_GATEWAY + "/" + reply.getTopic()), null);
+		}
+	}
+
+	/**
+	 * Creates unique identifier that can be used as a topic level.
+	 * 
+	 * @return the unique identifier.
+	 */
+	public String createUniqueId() {
+		synchronized (lock) {
+			uidCounter++;
+			return "uid." + Long.toHexString(uidCounter);
+		}
+	}
+
+	/**
+	 * Assigns a new value to a property. If the value is null, the property
+	 * will be removed.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @param value
+	 *            the new value of the property.
+	 */
+	public void setProperty(String name, Object value) {
+		synchronized (properties) {
+			if (value == null) {
+				properties.remove(name);
+			} else {
+				properties.put(name, value);
+			}
+		}
+	}
+
+	/**
+	 * Removes a property.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 */
+	public void removeProperty(String name) {
+		synchronized (properties) {
+			properties.remove(name);
+		}
+	}
+
+	/**
+	 * Returns value of property.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @return the value of the property or null, if the property is not
+	 *         defined.
+	 */
+	public Object getProperty(String name) {
+		synchronized (properties) {
+			return properties.get(name);
+		}
+	}
+
+	/**
+	 * Returns value of property as a string.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @return the property value converted to string.
+	 */
+	public String getPropertyAsString(String name) {
+		Object value = getProperty(name);
+		if (value == null) {
+			return null;
+		} else {
+			return value.toString();
+		}
+	}
+
+	/**
+	 * Returns value of property converted to an integer.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @param defaultValue
+	 *            the default value if conversion failed.
+	 * @return the value converted to integer or the default value if conversion
+	 *         failed.
+	 */
+	public int getPropertyAsInt(String name, int defaultValue) {
+		Object value = getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		if (value instanceof Number) {
+			return ((Number) value).intValue();
+		}
+
+		try {
+			return Integer.parseInt(value.toString().trim());
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns value of property converted to a double.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @param defaultValue
+	 *            the default value if conversion failed.
+	 * @return the value converted to integer or the default value if conversion
+	 *         failed.
+	 */
+	public double getPropertyAsDouble(String name, double defaultValue) {
+		Object value = getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+
+		try {
+			return Double.parseDouble(value.toString().trim());
+		} catch (Exception e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Returns value of property converted to a boolean.
+	 * 
+	 * @param name
+	 *            the name of property.
+	 * @param defaultValue
+	 *            the default value if conversion failed.
+	 * @return the value converted to boolean or the default value if conversion
+	 *         failed.
+	 */
+	public boolean getPropertyAsBoolean(String name, boolean defaultValue) {
+		Object value = getProperty(name);
+		if (value == null) {
+			return defaultValue;
+		}
+
+		if (value instanceof Boolean) {
+			return ((Boolean) value).booleanValue();
+		}
+
+		String val = value.toString().trim().toLowerCase();
+		if ("yes".equals(val) || "true".equals(val) || "1".equals(val)) {
+			return true;
+		}
+
+		if ("no".equals(val) || "false".equals(val) || "0".equals(val)) {
+			return false;
+		}
+
+		return defaultValue;
+	}
+
+	/**
+	 * Subscribes to a topic.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the simple message listener.
+	 * @return the subscription.
+	 */
+	public Subscription subscribe(String topicFilter, SimpleMessageListener messageListener) {
+		if (messageListener == null) {
+			throw new NullPointerException("The message listener cannot be null.");
+		}
+
+		return subscribe(topicFilter, new WrappingSimpleMessageListener(messageListener));
+	}
+
+	/**
+	 * Subscribes to a topic.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the simple message listener.
+	 * @param handlingPriority
+	 *            the handling priority - subscription with greater priority is
+	 *            handled first.
+	 * @return the subscription.
+	 */
+	public Subscription subscribe(String topicFilter, SimpleMessageListener messageListener, int handlingPriority) {
+		if (messageListener == null) {
+			throw new NullPointerException("The message listener cannot be null.");
+		}
+
+		return subscribe(topicFilter, new WrappingSimpleMessageListener(messageListener), handlingPriority);
+	}
+
+	/**
+	 * Subscribes to a topic.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @return the subscription.
+	 */
+	public Subscription subscribe(String topicFilter, MessageListener messageListener) {
+		return subscribe(topicFilter, messageListener, 0);
+	}
+
+	/**
+	 * Subscribes to a topic.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @param handlingPriority
+	 *            the handling priority - subscription with greater priority is
+	 *            handled first.
+	 * @return the subscription.
+	 */
+	public Subscription subscribe(String topicFilter, MessageListener messageListener, int handlingPriority) {
+		// basic checks
+		if (messageListener == null) {
+			throw new NullPointerException("The message listener cannot be null.");
+		}
+
+		return registerSubscription(createSubscription(topicFilter, messageListener, handlingPriority));
+	}
+
+	/**
+	 * Subscribes to a topic with asynchronous delivery of messages. Messages
+	 * are delivered to the message listener by the executor service of the
+	 * application, so that the listener can block without stalling event loops
+	 * of the application. Messages are delivered serially in the order of
+	 * their arrival. The mailbox of the subscription has the default capacity
+	 * {@link #DEFAULT_MAILBOX_CAPACITY} and the oldest pending message is
+	 * dropped when the mailbox is full.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @return the subscription.
+	 */
+	public AsyncSubscription subscribeAsync(String topicFilter, MessageListener messageListener) {
+		return subscribeAsync(topicFilter, messageListener, DEFAULT_MAILBOX_CAPACITY, OverloadPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * Subscribes to a topic with asynchronous delivery of messages. Messages
+	 * are delivered to the message listener by the executor service of the
+	 * application, so that the listener can block without stalling event loops
+	 * of the application. Messages are delivered serially in the order of
+	 * their arrival.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @param capacity
+	 *            the maximal number of pending messages in the mailbox of the
+	 *            subscription.
+	 * @param overflowPolicy
+	 *            the policy applied when the mailbox is full (only
+	 *            {@link OverloadPolicy#DROP_OLDEST} and
+	 *            {@link OverloadPolicy#DROP_NEWEST} are supported).
+	 * @return the subscription.
+	 */
+	public AsyncSubscription subscribeAsync(String topicFilter, MessageListener messageListener, int capacity,
+			OverloadPolicy overflowPolicy) {
+		// basic checks
+		if (messageListener == null) {
+			throw new NullPointerException("The message listener cannot be null.");
+		}
+
+		if (overflowPolicy == null) {
+			throw new NullPointerException("Overflow policy cannot be null.");
+		}
+
+		if ((overflowPolicy != OverloadPolicy.DROP_OLDEST) && (overflowPolicy != OverloadPolicy.DROP_NEWEST)) {
+			throw new IllegalArgumentException("Unsupported overflow policy of mailbox.");
+		}
+
+		if (capacity < 1) {
+			throw new IllegalArgumentException("The capacity of mailbox must be positive.");
+		}
+
+		SubscriptionMailbox mailbox = new SubscriptionMailbox(messageListener, capacity, overflowPolicy,
+				applicationExecutor, droppedMailboxMessageCount);
+		return registerSubscription(createSubscription(topicFilter, messageListener, 0, mailbox));
+	}
+
+	/**
+	 * Returns the number of messages dropped due to overflow of mailboxes of
+	 * asynchronous subscriptions.
+	 * 
+	 * @see Application#subscribeAsync(String, MessageListener, int,
+	 *      OverloadPolicy)
+	 * @return the number of dropped messages.
+	 */
+	public long getDroppedMailboxMessageCount() {
+		return droppedMailboxMessageCount.get();
+	}
+
+	/**
+	 * Registers a created subscription.
+	 * 
+	 * @param subscription
+	 *            the subscription.
+	 * @return the subscription.
+	 */
+	private SubscriptionImpl registerSubscription(SubscriptionImpl subscription) {
+		synchronized (lock) {
+			GatewayHolder sourceGatewayHolder = getSourceGatewayHolder(subscription);
+			SubscriptionBatch batch = new SubscriptionBatch();
+			batch.addSubscription(sourceGatewayHolder, subscription.localizedTopicFilter, subscription);
+			batch.apply();
+			return subscription;
+		}
+	}
+
+	/**
+	 * Subscribes to multiple topics at once. All subscriptions are created
+	 * atomically and each gateway is notified about new topic filters by a
+	 * single batched update.
+	 * 
+	 * @param subscriptions
+	 *            the map of topic filters to message listeners.
+	 * @return the list of created subscriptions in the iteration order of the
+	 *         map.
+	 */
+	public List<Subscription> subscribeAll(Map<String, ? extends MessageListener> subscriptions) {
+		return subscribeAll(subscriptions, 0);
+	}
+
+	/**
+	 * Subscribes to multiple topics at once. All subscriptions are created
+	 * atomically and each gateway is notified about new topic filters by a
+	 * single batched update.
+	 * 
+	 * @param subscriptions
+	 *            the map of topic filters to message listeners.
+	 * @param handlingPriority
+	 *            the handling priority of all subscriptions - subscription with
+	 *            greater priority is handled first.
+	 * @return the list of created subscriptions in the iteration order of the
+	 *         map.
+	 */
+	public List<Subscription> subscribeAll(Map<String, ? extends MessageListener> subscriptions,
+			int handlingPriority) {
+		if (subscriptions == null) {
+			throw new NullPointerException("The map of subscriptions cannot be null.");
+		}
+
+		// basic checks
+		List<SubscriptionImpl> newSubscriptions = new ArrayList<>(subscriptions.size());
+		for (Map.Entry<String, ? extends MessageListener> entry : subscriptions.entrySet()) {
+			if (entry.getValue() == null) {
+				throw new NullPointerException("The message listener cannot be null.");
+			}
+
+			newSubscriptions.add(createSubscription(entry.getKey(), entry.getValue(), handlingPriority));
+		}
+
+		synchronized (lock) {
+			// resolve all gateways before any change is made
+			List<GatewayHolder> sourceGatewayHolders = new ArrayList<>(newSubscriptions.size());
+			for (SubscriptionImpl subscription : newSubscriptions) {
+				sourceGatewayHolders.add(getSourceGatewayHolder(subscription));
+			}
+
+			SubscriptionBatch batch = new SubscriptionBatch();
+			for (int i = 0; i < newSubscriptions.size(); i++) {
+				SubscriptionImpl subscription = newSubscriptions.get(i);
+				batch.addSubscription(sourceGatewayHolders.get(i), subscription.localizedTopicFilter, subscription);
+			}
+
+			batch.apply();
+		}
+
+		return new ArrayList<Subscription>(newSubscriptions);
+	}
+
+	/**
+	 * Closes multiple subscriptions at once. Each gateway is notified about
+	 * removed topic filters by a single batched update.
+	 * 
+	 * @param subscriptions
+	 *            the subscriptions to be closed.
+	 */
+	public void closeAll(Collection<? extends Subscription> subscriptions) {
+		if (subscriptions == null) {
+			throw new NullPointerException("The collection of subscriptions cannot be null.");
+		}
+
+		List<Subscription> foreignSubscriptions = new ArrayList<>();
+		synchronized (lock) {
+			SubscriptionBatch batch = new SubscriptionBatch();
+			for (Subscription subscription : subscriptions) {
+				if (subscription instanceof SubscriptionImpl && ((SubscriptionImpl) subscription).isOwnedBy(this)) {
+					SubscriptionImpl ownSubscription = (SubscriptionImpl) subscription;
+					if (ownSubscription.mailbox != null) {
+						ownSubscription.mailbox.close();
+					}
+					GatewayHolder sourceGatewayHolder = null;
+					if (!ownSubscription.global) {
+						sourceGatewayHolder = gatewayHolders.get(ownSubscription.topicHead);
+						if (sourceGatewayHolder == null) {
+							continue;
+						}
+					}
+
+					batch.removeSubscription(sourceGatewayHolder, ownSubscription.localizedTopicFilter,
+							ownSubscription);
+				} else if (subscription != null) {
+					foreignSubscriptions.add(subscription);
+				}
+			}
+
+			batch.apply();
+		}
+
+		// subscriptions of other applications are closed one by one
+		for (Subscription subscription : foreignSubscriptions) {
+			subscription.close();
+		}
+	}
+
+	/**
+	 * Creates a subscription with validated topic filter.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @param handlingPriority
+	 *            the handling priority.
+	 * @return the subscription.
+	 */
+	private SubscriptionImpl createSubscription(String topicFilter, MessageListener messageListener,
+			int handlingPriority) {
+		return createSubscription(topicFilter, messageListener, handlingPriority, null);
+	}
+
+	/**
+	 * Creates a subscription and checks its topic filter.
+	 * 
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @param messageListener
+	 *            the message listener.
+	 * @param handlingPriority
+	 *            the handling priority.
+	 * @param mailbox
+	 *            the mailbox of asynchronous subscription, or null.
+	 * @return the subscription.
+	 * @throws MessagingException
+	 *             if the topic filter is invalid.
+	 */
+	private SubscriptionImpl createSubscription(String topicFilter, MessageListener messageListener,
+			int handlingPriority, SubscriptionMailbox mailbox) {
+		if (!isValidTopicFilter(topicFilter)) {
+			throw new MessagingException("Malformed topic filter.");
+		}
+
+		// check "gateway" (localized) part of the topic filter
+		SubscriptionImpl subscription = new SubscriptionImpl(topicFilter, messageListener, handlingPriority, mailbox);
+		if (subscription.localizedTopicFilter == null) {
+			throw new MessagingException("Invalid topic filter: no subtopic after gateway.");
+		}
+
+		return subscription;
+	}
+
+	/**
+	 * Returns the gateway related to the topic filter of a subscription. The
+	 * method invocation is synchronized by the application lock.
+	 * 
+	 * @param subscription
+	 *            the subscription.
+	 * @return the gateway holder, or null, if the topic filter is a global
+	 *         topic filter.
+	 * @throws MessagingException
+	 *             if the gateway does not exist.
+	 */
+	private GatewayHolder getSourceGatewayHolder(SubscriptionImpl subscription) {
+		if (subscription.global) {
+			return null;
+		}
+
+		GatewayHolder sourceGatewayHolder = gatewayHolders.get(subscription.topicHead);
+		if (sourceGatewayHolder == null) {
+			throw new MessagingException("Invalid topic filter: Unknown gateway \"" + subscription.topicHead + "\".");
+		}
+
+		return sourceGatewayHolder;
+	}
+
+	/**
+	 * Creates action that changes subscription.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway.
+	 * @param topicFilters
+	 *            the topic filters.
+	 * @param subscribe
+	 *            true, for subscribe, false for unsubscribe.
+	 * @return the action.
+	 */
+	private Action createSubscriptionChangeAction(final GatewayHolder gatewayHolder, final List<String> topicFilters,
+			final boolean subscribe) {
+		final List<String> unmodifiableTopicFilters = Collections.unmodifiableList(topicFilters);
+		return new Action() {
+			@Override
+			void execute() {
+				if (subscribe) {
+					gatewayHolder.gateway.onAddTopicFilters(unmodifiableTopicFilters);
+				} else {
+					gatewayHolder.gateway.onRemoveTopicFilters(unmodifiableTopicFilters);
+				}
+			}
+
+			@Override
+			EventLoop getEventLoop() {
+				return gatewayHolder.eventLoop;
+			}
+		};
+	}
+
+	/**
+	 * Closes a subscription.
+	 * 
+	 * @param subscription
+	 *            the subscription.
+	 */
+	private void closeSubscription(SubscriptionImpl subscription) {
+		if (subscription.mailbox != null) {
+			subscription.mailbox.close();
+		}
+
+		synchronized (lock) {
+			// get gateway related to the topic filter
+			GatewayHolder sourceGatewayHolder = null;
+			if (!subscription.global) {
+				sourceGatewayHolder = gatewayHolders.get(subscription.topicHead);
+				if (sourceGatewayHolder == null) {
+					return;
+				}
+			}
+
+			SubscriptionBatch batch = new SubscriptionBatch();
+			batch.removeSubscription(sourceGatewayHolder, subscription.localizedTopicFilter, subscription);
+			batch.apply();
+		}
+	}
+
+	/**
+	 * Publishes a modified index of topic filters. The method invocation is
+	 * synchronized by the application lock.
+	 * 
+	 * @param sourceGatewayHolder
+	 *            the gateway related to the index, or null, if the index
+	 *            contains global topic filters.
+	 * @param index
+	 *            the modified index.
+	 */
+	private void setTopicFilterIndex(GatewayHolder sourceGatewayHolder, TopicFilterIndex index) {
+		if (sourceGatewayHolder == null) {
+			globalTopicFilters = index;
+		} else {
+			sourceGatewayHolder.topicFilters = index;
+		}
+	}
+
+	/**
+	 * Requests invalidation of cached subscriptions of all topics that match a
+	 * changed topic filter. The method invocation is synchronized by the
+	 * application lock.
+	 * 
+	 * @param sourceGatewayHolder
+	 *            the gateway related to the topic filter, or null, if the topic
+	 *            filter is a global topic filter.
+	 * @param filter
+	 *            the (localized) topic filter.
+	 */
+	private void invalidateSubscriberCaches(GatewayHolder sourceGatewayHolder, TopicFilter filter) {
+		if (sourceGatewayHolder == null) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				gatewayHolder.invalidateSubscriberCache(filter);
+			}
+		} else {
+			sourceGatewayHolder.invalidateSubscriberCache(filter);
+		}
+	}
+
+	/**
+	 * Publishes a message. The publication is submitted to the default lane
+	 * of the target gateway ({@link ActionLane#BULK BULK}, unless stated
+	 * otherwise), hence it is not ordered with code scheduled later by
+	 * {@link #invokeLater(Runnable, long, TimeUnit)} or with publications in
+	 * other lanes.
+	 * 
+	 * @param message
+	 *            the message to be published.
+	 * 
+	 */
+	public void publish(Message message) {
+		enqueueAction(createPublishAction(message, true, null));
+	}
+
+	/**
+	 * Publishes a message in a lane of actions. Publications in different
+	 * lanes are not ordered.
+	 * 
+	 * @param message
+	 *            the message to be published.
+	 * @param lane
+	 *            the lane of the publication.
+	 */
+	public void publish(Message message, ActionLane lane) {
+		if (lane == null) {
+			throw new NullPointerException("Lane cannot be null.");
+		}
+
+		enqueueAction(createPublishAction(message, true, lane));
+	}
+
+	/**
+	 * Publishes a collection of messages. Messages are validated before any of
+	 * them is published, i.e., if a message is invalid, no message is
+	 * published. Messages are grouped by target gateway and each group is
+	 * published by a single action that passes the messages to the gateway in
+	 * one {@link Gateway#onPublishBatch(List)} invocation. Messages targeting
+	 * the same gateway are published in the order of the collection.
+	 * 
+	 * @param messages
+	 *            the messages to be published.
+	 */
+	public void publishAll(Collection<Message> messages) {
+		enqueuePublishBatchActions(messages, null);
+	}
+
+	/**
+	 * Publishes a collection of messages in a lane of actions.
+	 * 
+	 * @see Application#publishAll(Collection)
+	 * @param messages
+	 *            the messages to be published.
+	 * @param lane
+	 *            the lane of the publication.
+	 */
+	public void publishAll(Collection<Message> messages, ActionLane lane) {
+		if (lane == null) {
+			throw new NullPointerException("Lane cannot be null.");
+		}
+
+		enqueuePublishBatchActions(messages, lane);
+	}
+
+	/**
+	 * Publishes a message with a delay.
+	 * 
+	 * @param message
+	 *            the message to be published.
+	 * @param delay
+	 *            the time from now to delay execution.
+	 * @param unit
+	 *            the time unit of the delay parameter.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending publication.
+	 */
+	public Cancellable publishLater(Message message, long delay, TimeUnit unit) {
+		return enqueueScheduledAction(createPublishAction(message, false, null),
+				new Schedule(unit.toNanos(delay), 0, Schedule.NONE));
+	}
+
+	/**
+	 * Publishes a message at fixed rate analogously to
+	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param message
+	 *            the message to be published
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param period
+	 *            the desired period between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending publications.
+	 */
+	public Cancellable publishAtFixedRate(Message message, long initialDelay, long period, TimeUnit unit) {
+		return enqueueScheduledAction(createPublishAction(message, false, null),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(period), Schedule.FIXED_RATE));
+	}
+
+	/**
+	 * Publishes a message with a fixed delay analogously to
+	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param message
+	 *            the message to be published
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param delay
+	 *            the delay between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending publications.
+	 */
+	public Cancellable publishWithFixedDelay(Message message, long initialDelay, long delay, TimeUnit unit) {
+		return enqueueScheduledAction(createPublishAction(message, false, null),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(delay), Schedule.FIXED_DELAY));
+	}
+
+	/**
+	 * Publishes messages produced by the message producer at fixed rate
+	 * analogously to
+	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param messageFactory
+	 *            the message factory that produces messages to be published.
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param period
+	 *            the desired period between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending publications.
+	 */
+	public Cancellable publishAtFixedRate(MessageFactory messageFactory, long initialDelay, long period,
+			TimeUnit unit) {
+		if (messageFactory == null) {
+			throw new NullPointerException("Message factory cannot be null.");
+		}
+
+		return enqueueScheduledAction(createPublishFromFactoryAction(messageFactory),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(period), Schedule.FIXED_RATE));
+	}
+
+	/**
+	 * Publishes messages produced by the message producer with a fixed delay
+	 * analogously to
+	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param messageFactory
+	 *            the message factory that produces messages to be published.
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param delay
+	 *            the delay between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending publications.
+	 */
+	public Cancellable publishWithFixedDelay(MessageFactory messageFactory, long initialDelay, long delay,
+			TimeUnit unit) {
+		if (messageFactory == null) {
+			throw new NullPointerException("Message factory cannot be null.");
+		}
+
+		return enqueueScheduledAction(createPublishFromFactoryAction(messageFactory),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(delay), Schedule.FIXED_DELAY));
+	}
+
+	/**
+	 * Executes a code with a delay. The code is executed after all actions in
+	 * the {@link ActionLane#SYSTEM SYSTEM} and {@link ActionLane#CONTROL
+	 * CONTROL} lanes that were submitted before the code was scheduled (e.g.,
+	 * subscription changes and synchronization requests of data items).
+	 * Actions in the {@link ActionLane#BULK BULK} lane (e.g., publications and
+	 * received messages) are not ordered with scheduled code, i.e., the code
+	 * can be executed before a publication that was submitted earlier.
+	 * 
+	 * @param runnable
+	 *            the runnable (code) to be executed.
+	 * @param delay
 	 *            the time from now to delay execution.
 	 * @param unit
-	 *            the time unit of the delay parameter.
+	 *            the time unit of the delay parameter.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending invocation.
+	 */
+	public Cancellable invokeLater(Runnable runnable, long delay, TimeUnit unit) {
+		return enqueueScheduledAction(createActionWithRunnable(runnable),
+				new Schedule(unit.toNanos(delay), 0, Schedule.NONE));
+	}
+
+	/**
+	 * Executes a code at fixed rate in the event queue of the application
+	 * analogously to
+	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param runnable
+	 *            the runnable (code) to be executed.
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param period
+	 *            the desired period between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending invocations.
+	 */
+	public Cancellable invokeAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit) {
+		if (runnable == null) {
+			throw new NullPointerException("Runnable cannot be null.");
+		}
+
+		return enqueueScheduledAction(createActionWithRunnable(runnable),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(period), Schedule.FIXED_RATE));
+	}
+
+	/**
+	 * Executes a code with a fixed delay in the event queue of the application
+	 * analogously to
+	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
+	 * 
+	 * @param runnable
+	 *            the runnable (code) to be executed.
+	 * @param initialDelay
+	 *            the time to delay first publication.
+	 * @param delay
+	 *            the delay between successive publications.
+	 * @param unit
+	 *            the time unit of the initialDelay and period parameters.
+	 * 
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         pending invocations.
+	 */
+	public Cancellable invokeWithFixedDelay(Runnable runnable, long initialDelay, long delay, TimeUnit unit) {
+		if (runnable == null) {
+			throw new NullPointerException("Runnable cannot be null.");
+		}
+
+		return enqueueScheduledAction(createActionWithRunnable(runnable),
+				new Schedule(unit.toNanos(initialDelay), unit.toNanos(delay), Schedule.FIXED_DELAY));
+	}
+
+	/**
+	 * Executes a code in the main application thread and returns a future of
+	 * its result. The code is put into the queue of pending actions without
+	 * scheduling, i.e., it is executed after actions that are already in the
+	 * queue. If the method is invoked in the main application thread, the code
+	 * is executed immediately in the calling thread and the returned future is
+	 * completed. If the application exits before the code is executed, the
+	 * returned future is cancelled.
+	 * 
+	 * @param callable
+	 *            the code to be executed.
+	 * @param <T>
+	 *            the type of the result.
+	 * @return the future of the result of the code.
+	 */
+	public <T> Future<T> submit(Callable<T> callable) {
+		if (callable == null) {
+			throw new NullPointerException("Callable cannot be null.");
+		}
+
+		Invocation<T> invocation = new Invocation<>(callable);
+		if (Thread.currentThread() == applicationThread) {
+			invocation.run();
+		} else {
+			enqueueInvocation(invocation);
+		}
+
+		return invocation;
+	}
+
+	/**
+	 * Executes a code in the main application thread and waits until the
+	 * execution is completed. If the method is invoked in the main application
+	 * thread, the code is executed immediately in the calling thread. A
+	 * runtime exception or error thrown by the code is rethrown in the calling
+	 * thread.
+	 * 
+	 * <p>
+	 * The method cannot be invoked in a thread of another event loop of the
+	 * application, since the main application thread can wait for the event
+	 * loop (e.g., when state of gateways is saved). The method cannot be
+	 * invoked before the application is launched and it fails, if the
+	 * application exits before the code is executed.
+	 * 
+	 * @see Application#submit(Callable)
+	 * @param runnable
+	 *            the code to be executed.
+	 * @throws InterruptedException
+	 *             if the calling thread is interrupted while waiting.
+	 * @throws IllegalStateException
+	 *             if the method is invoked in a thread of another event loop,
+	 *             the application is not launched, or the application exited
+	 *             before the code was executed.
+	 */
+	public void invokeAndWait(Runnable runnable) throws InterruptedException {
+		if (runnable == null) {
+			throw new NullPointerException("Runnable cannot be null.");
+		}
+
+		if (Thread.currentThread() == applicationThread) {
+			runnable.run();
+			return;
+		}
+
+		if (isInApplicationThread()) {
+			throw new IllegalStateException("It is not possible to wait for an invocation in a thread of an event loop.");
+		}
+
+		synchronized (lock) {
+			if (!launched) {
+				throw new IllegalStateException(
+						"It is not possible to wait for an invocation in application that is not launched.");
+			}
+		}
+
+		Invocation<Void> invocation = new Invocation<>(Executors.<Void> callable(runnable, null));
+		enqueueInvocation(invocation);
+		try {
+			invocation.get();
+		} catch (CancellationException e) {
+			throw new IllegalStateException("The application exited before the invocation was executed.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Puts an invocation into the queue of pending actions of the main
+	 * application thread. If exit of the application is requested, the
+	 * invocation is cancelled.
+	 * 
+	 * @param invocation
+	 *            the invocation.
+	 */
+	private void enqueueInvocation(Invocation<?> invocation) {
+		// the invocation is registered before the exit flag is checked, so
+		// that it is either cancelled here or by the exiting application
+		pendingInvocations.add(invocation);
+		if (exitRequested) {
+			invocation.cancel(false);
+			return;
+		}
+
+		enqueueAction(createActionWithRunnable(invocation));
+	}
+
+	/**
+	 * Creates action that executes a runnable.
+	 * 
+	 * @param runnable
+	 *            the runnable to be executed.
+	 * @return the action.
+	 */
+	private Action createActionWithRunnable(final Runnable runnable) {
+		return new Action() {
+			@Override
+			public void execute() {
+				runnable.run();
+			}
+		};
+	}
+
+	/**
+	 * Creates an action that publishes a message.
+	 * 
+	 * @param message
+	 *            the message to be published.
+	 * @param pooled
+	 *            true, if the action is executed once after it is put into a
+	 *            queue of pending actions and it can be created from a pooled
+	 *            event slot, false, if the action is reusable.
+	 * @param lane
+	 *            the lane of the action, or null, if the default lane of the
+	 *            target gateway is used.
+	 * @return the action.
+	 */
+	private Action createPublishAction(Message message, boolean pooled, ActionLane lane) {
+		String topicName = message.getTopic();
+		if (!isValidTopicName(topicName)) {
+			throw new MessagingException("Invalid topic.");
+		}
+
+		int slashIdx = topicName.indexOf('/');
+		if (slashIdx < 0) {
+			throw new MessagingException("Invalid topic: missing subtopic of gateway.");
+		}
+
+		String gatewayId = topicName.substring(0, slashIdx);
+		String localizedTopicName = topicName.substring(slashIdx + 1);
+
+		GatewayHolder targetGatewayHolder = findGatewayHolder(gatewayId);
+
+		if (targetGatewayHolder == null) {
+			throw new MessagingException("Invalid topic: unknown gateway \"" + gatewayId + "\".");
+		}
+
+		if (!targetGatewayHolder.gateway.isValidTopicName(localizedTopicName)) {
+			throw new MessagingException("Invalid topic for gateway \"" + gatewayId + "\".");
+		}
+
+		EventLoop eventLoop = targetGatewayHolder.eventLoop;
+		if (lane == null) {
+			lane = targetGatewayHolder.lane;
+		}
+
+		EventSlot slot = pooled ? eventLoop.claimSlot(EventKind.PUBLISH, lane) : new EventSlot(eventLoop, false);
+		slot.kind = EventKind.PUBLISH;
+		slot.lane = lane;
+		slot.gatewayHolder = targetGatewayHolder;
+		slot.message = message.cloneWithNewTopic(localizedTopicName);
+		return slot;
+	}
+
+	/**
+	 * Validates messages, groups them by target gateway and enqueues an action
+	 * publishing each group.
+	 * 
+	 * @param messages
+	 *            the messages to be published.
+	 * @param lane
+	 *            the lane of the actions, or null, if the default lanes of
+	 *            target gateways are used.
+	 */
+	private void enqueuePublishBatchActions(Collection<Message> messages, ActionLane lane) {
+		if (messages == null) {
+			throw new NullPointerException("Messages cannot be null.");
+		}
+
+		// the gateway of the previous message is cached, since batches
+		// usually contain consecutive messages for the same gateway
+		Map<GatewayHolder, List<Message>> batches = new LinkedHashMap<>();
+		String lastGatewayId = null;
+		GatewayHolder lastGatewayHolder = null;
+		List<Message> lastBatch = null;
+		for (Message message : messages) {
+			if (message == null) {
+				throw new NullPointerException("Message cannot be null.");
+			}
+
+			String topicName = message.getTopic();
+			if (!isValidTopicName(topicName)) {
+				throw new MessagingException("Invalid topic.");
+			}
+
+			int slashIdx = topicName.indexOf('/');
+			if (slashIdx < 0) {
+				throw new MessagingException("Invalid topic: missing subtopic of gateway.");
+			}
+
+			if ((lastGatewayId == null) || !topicName.regionMatches(0, lastGatewayId, 0, slashIdx)
+					|| (lastGatewayId.length() != slashIdx)) {
+				String gatewayId = topicName.substring(0, slashIdx);
+				GatewayHolder targetGatewayHolder = findGatewayHolder(gatewayId);
+				if (targetGatewayHolder == null) {
+					throw new MessagingException("Invalid topic: unknown gateway \"" + gatewayId + "\".");
+				}
+
+				lastGatewayId = gatewayId;
+				if (targetGatewayHolder != lastGatewayHolder) {
+					lastGatewayHolder = targetGatewayHolder;
+					lastBatch = batches.get(targetGatewayHolder);
+					if (lastBatch == null) {
+						lastBatch = new ArrayList<>();
+						batches.put(targetGatewayHolder, lastBatch);
+					}
+				}
+			}
+
+			String localizedTopicName = topicName.substring(slashIdx + 1);
+			if (!lastGatewayHolder.gateway.isValidTopicName(localizedTopicName)) {
+				throw new MessagingException("Invalid topic for gateway \"" + lastGatewayId + "\".");
+			}
+
+			lastBatch.add(message.cloneWithNewTopic(localizedTopicName));
+		}
+
+		for (Map.Entry<GatewayHolder, List<Message>> batch : batches.entrySet()) {
+			GatewayHolder targetGatewayHolder = batch.getKey();
+			EventSlot slot = new EventSlot(targetGatewayHolder.eventLoop, false);
+			slot.kind = EventKind.PUBLISH_BATCH;
+			slot.lane = (lane != null) ? lane : targetGatewayHolder.lane;
+			slot.gatewayHolder = targetGatewayHolder;
+			slot.messages = Collections.unmodifiableList(batch.getValue());
+			enqueueAction(slot);
+		}
+	}
+
+	/**
+	 * Creates an action that publishes a message created by a message factory.
+	 * 
+	 * @param messageFactory
+	 *            the message factory.
+	 * @return the action.
+	 */
+	private Action createPublishFromFactoryAction(final MessageFactory messageFactory) {
+		return new Action() {
+			@Override
+			void execute() {
+				publishFactoryMessage(messageFactory);
+			}
+		};
+	}
+
+	/**
+	 * Sets the persistent storage utilized to restore and save state of data
+	 * items.
+	 * 
+	 * @param storage
+	 *            the persistent storage.
+	 */
+	public void setPersistentStorage(PersistentStorage storage) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException(
+						"It is not possible to set persistent storage of launched application.");
+			}
+
+			this.persistentStorage = storage;
+		}
+	}
+
+	/**
+	 * Returns the persistent storage.
+	 * 
+	 * @see Application#setPersistentStorage(PersistentStorage)
+	 * @return the persistent storage.
+	 */
+	public PersistentStorage getPersistentStorage() {
+		synchronized (lock) {
+			return persistentStorage;
+		}
+	}
+
+	/**
+	 * Sets the period in seconds after which state of application is
+	 * automatically saved.
+	 * 
+	 * @param seconds
+	 *            the period in seconds, zero or negative value indicate that
+	 *            state is not saved continuously.
+	 */
+	public void setAutosavePeriod(int seconds) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to set autosave period of launched application.");
+			}
+
+			this.autosavePeriodInSeconds = Math.max(seconds, 0);
+		}
+	}
+
+	/**
+	 * Returns auto-save period in seconds.
+	 * 
+	 * @see Application#setAutosavePeriod(int)
+	 * @return the auto-save period in seconds.
+	 */
+	public int getAutosavePeriod() {
+		synchronized (lock) {
+			return autosavePeriodInSeconds;
+		}
+	}
+
+	/**
+	 * Sets the maximal number of topics per gateway whose matching
+	 * subscriptions are cached.
+	 * 
+	 * @param size
+	 *            the maximal number of cached topics per gateway, zero or
+	 *            negative value indicate that the cache is disabled.
+	 */
+	public void setSubscriberCacheSize(int size) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException(
+						"It is not possible to set subscriber cache size of launched application.");
+			}
+
+			this.subscriberCacheSize = Math.max(size, 0);
+		}
+	}
+
+	/**
+	 * Returns the maximal number of topics per gateway whose matching
+	 * subscriptions are cached.
+	 * 
+	 * @see Application#setSubscriberCacheSize(int)
+	 * @return the maximal number of cached topics per gateway.
+	 */
+	public int getSubscriberCacheSize() {
+		synchronized (lock) {
+			return subscriberCacheSize;
+		}
+	}
+
+	/**
+	 * Sets the maximal number of actions of each lane executed in a single
+	 * iteration of the event loop. Scheduled actions and the autosave period
+	 * are checked once per iteration, so larger batches increase throughput
+	 * under bursty load, while smaller batches reduce delays of scheduled
+	 * actions and actions in lanes with higher priority.
+	 * 
+	 * @see ActionLane
+	 * 
+	 * @param size
+	 *            the maximal number of actions executed in an iteration (at
+	 *            least 1).
+	 */
+	public void setActionBatchSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("The batch size must be positive.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to set action batch size of launched application.");
+			}
+
+			this.actionBatchSize = size;
+		}
+	}
+
+	/**
+	 * Returns the maximal number of actions executed in a single iteration of
+	 * the event loop.
+	 * 
+	 * @see Application#setActionBatchSize(int)
+	 * @return the maximal number of actions executed in an iteration.
+	 */
+	public int getActionBatchSize() {
+		synchronized (lock) {
+			return actionBatchSize;
+		}
+	}
+
+	/**
+	 * Sets the capacity of action queues of event loops. If the number of
+	 * pending actions of an event loop reaches the capacity, messages received
+	 * by gateways of the event loop are handled according to the overload
+	 * policies of the gateways. Other actions (publications, subscription
+	 * changes, scheduled actions, etc.) are never dropped or blocked. By
+	 * default, action queues are unbounded.
+	 * 
+	 * <p>
+	 * The capacity is a soft limit: concurrent producers can pass the check of
+	 * capacity at the same time, and a message that has no pending message to
+	 * replace is admitted by gateways with the {@link OverloadPolicy#CONFLATE
+	 * CONFLATE} or {@link OverloadPolicy#DROP_OLDEST DROP_OLDEST} policy.
+	 * 
+	 * @see Application#setOverloadPolicy(String, OverloadPolicy)
+	 * @param capacity
+	 *            the capacity of action queues, zero or negative value
+	 *            indicate that action queues are unbounded.
+	 */
+	public void setActionQueueCapacity(int capacity) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException(
+						"It is not possible to set action queue capacity of launched application.");
+			}
+
+			this.actionQueueCapacity = Math.max(capacity, 0);
+		}
+	}
+
+	/**
+	 * Returns the capacity of action queues of event loops.
+	 * 
+	 * @see Application#setActionQueueCapacity(int)
+	 * @return the capacity of action queues, or 0, if action queues are
+	 *         unbounded.
+	 */
+	public int getActionQueueCapacity() {
+		synchronized (lock) {
+			return actionQueueCapacity;
+		}
+	}
+
+	/**
+	 * Sets the policy applied to messages received by a gateway, when the
+	 * action queue of the event loop of the gateway is full. The default
+	 * policy is {@link OverloadPolicy#BLOCK}.
+	 * 
+	 * @see Application#setActionQueueCapacity(int)
+	 * @param gatewayId
+	 *            the identifier of the gateway.
+	 * @param policy
+	 *            the overload policy.
+	 */
+	public void setOverloadPolicy(String gatewayId, OverloadPolicy policy) {
+		if (policy == null) {
+			throw new NullPointerException("Overload policy cannot be null.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException(
+						"It is not possible to set overload policy of a gateway of launched application.");
+			}
+
+			GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
+			if (gatewayHolder == null) {
+				throw new IllegalArgumentException("Unknown gateway \"" + gatewayId + "\".");
+			}
+
+			gatewayHolder.overloadPolicy = policy;
+		}
+	}
+
+	/**
+	 * Returns the policy applied to messages received by a gateway, when the
+	 * action queue of the event loop of the gateway is full.
+	 * 
+	 * @param gatewayId
+	 *            the identifier of the gateway.
+	 * @return the overload policy.
+	 */
+	public OverloadPolicy getOverloadPolicy(String gatewayId) {
+		synchronized (lock) {
+			GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
+			if (gatewayHolder == null) {
+				throw new IllegalArgumentException("Unknown gateway \"" + gatewayId + "\".");
+			}
+
+			return gatewayHolder.overloadPolicy;
+		}
+	}
+
+	/**
+	 * Returns the number of received messages dropped due to overload.
+	 * 
+	 * @see OverloadPolicy#DROP_NEWEST
+	 * @see OverloadPolicy#DROP_OLDEST
+	 * @return the number of dropped messages.
+	 */
+	public long getDroppedMessageCount() {
+		long result = 0;
+		synchronized (lock) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				result += gatewayHolder.droppedMessageCount.get();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of received messages replaced by a newer message
+	 * with the same topic due to overload.
+	 * 
+	 * @see OverloadPolicy#CONFLATE
+	 * @return the number of conflated messages.
+	 */
+	public long getConflatedMessageCount() {
+		long result = 0;
+		synchronized (lock) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				result += gatewayHolder.conflatedMessageCount.get();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of received messages whose submission blocked the
+	 * thread of a gateway due to overload.
+	 * 
+	 * @see OverloadPolicy#BLOCK
+	 * @return the number of blocked messages.
+	 */
+	public long getBlockedMessageCount() {
+		long result = 0;
+		synchronized (lock) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				result += gatewayHolder.blockedMessageCount.get();
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Sets whether metrics of event loops are collected. The metrics include
+	 * histograms of queue wait times and execution times of actions, queue
+	 * depth and the number of scheduled actions. By default, metrics are not
+	 * collected.
+	 * 
+	 * @param enabled
+	 *            true, if metrics are collected, false otherwise.
+	 */
+	public void setMetricsEnabled(boolean enabled) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to enable metrics of launched application.");
+			}
+
+			this.metricsEnabled = enabled;
+		}
+	}
+
+	/**
+	 * Returns whether metrics of event loops are collected.
+	 * 
+	 * @return true, if metrics are collected, false otherwise.
+	 */
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	/**
+	 * Sets the period of publication of collected metrics as system messages
+	 * with topics {@code $SYS/metrics/...}. Metrics are published only if they
+	 * are enabled.
+	 * 
+	 * @see Application#setMetricsEnabled(boolean)
+	 * @param seconds
+	 *            the period in seconds, zero or negative value, if metrics are
+	 *            not published.
+	 */
+	public void setMetricsPeriod(int seconds) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to set metrics period of launched application.");
+			}
+
+			this.metricsPeriodInSeconds = Math.max(seconds, 0);
+		}
+	}
+
+	/**
+	 * Returns the period of publication of collected metrics as system
+	 * messages.
+	 * 
+	 * @return the period in seconds, or 0, if metrics are not published.
+	 */
+	public int getMetricsPeriod() {
+		synchronized (lock) {
+			return metricsPeriodInSeconds;
+		}
+	}
+
+	/**
+	 * Returns the histogram of times (in nanoseconds) that actions of a kind
+	 * spent in queues of event loops before their execution. For scheduled
+	 * actions, the time is measured from the time when the action should be
+	 * executed.
+	 * 
+	 * @param kind
+	 *            the kind of actions.
+	 * @return the histogram of wait times.
+	 */
+	public Histogram getQueueWaitTimeHistogram(ActionKind kind) {
+		Histogram result = new Histogram(new long[Histogram.BUCKET_COUNT], 0, 0);
+		for (EventLoop eventLoop : eventLoops) {
+			result = result.merge(eventLoop.waitTimes[kind.ordinal()].snapshot());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the histogram of execution times (in nanoseconds) of actions of
+	 * a kind.
+	 * 
+	 * @param kind
+	 *            the kind of actions.
+	 * @return the histogram of execution times.
+	 */
+	public Histogram getExecutionTimeHistogram(ActionKind kind) {
+		Histogram result = new Histogram(new long[Histogram.BUCKET_COUNT], 0, 0);
+		for (EventLoop eventLoop : eventLoops) {
+			result = result.merge(eventLoop.executionTimes[kind.ordinal()].snapshot());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the current number of pending actions in queues of all event
+	 * loops.
+	 * 
+	 * @return the number of pending actions.
+	 */
+	public long getQueueDepth() {
+		long result = 0;
+		for (EventLoop eventLoop : eventLoops) {
+			result += eventLoop.getPendingActionCount();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the sum of peak numbers of pending actions of event loops. The
+	 * number of pending actions is sampled at the beginning of each iteration
+	 * of an event loop, if metrics are enabled.
+	 * 
+	 * @return the peak number of pending actions.
+	 */
+	public long getPeakQueueDepth() {
+		long result = 0;
+		for (EventLoop eventLoop : eventLoops) {
+			result += eventLoop.peakQueueDepth;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of scheduled actions (including repeated actions)
+	 * observed at the beginning of the last iteration of the main event loop,
+	 * if metrics are enabled.
+	 * 
+	 * @return the number of scheduled actions.
+	 */
+	public int getScheduledActionCount() {
+		return scheduledActionCount;
+	}
+
+	/**
+	 * Returns the histogram of delays (in nanoseconds) between the times when
+	 * scheduled actions should be executed and the times when the main
+	 * application thread executed (or forwarded to another event loop) the
+	 * actions. The histogram is updated only if metrics are enabled.
+	 * 
+	 * @see Application#setMetricsEnabled(boolean)
+	 * @return the histogram of scheduling jitter.
+	 */
+	public Histogram getSchedulingJitterHistogram() {
+		return schedulingJitter.snapshot();
+	}
+
+	/**
+	 * Sets the time before execution of the next scheduled action, when the
+	 * idle main application thread stops parking and busy-waits for the
+	 * action. Parking of a thread is usually less precise than the resolution
+	 * of scheduling (one microsecond), hence spinning reduces jitter of
+	 * scheduled actions with sub-millisecond periods at the cost of CPU time.
+	 * By default, the thread only parks.
+	 * 
+	 * @param time
+	 *            the spin time, zero or negative value, if the thread only
+	 *            parks.
+	 * @param unit
+	 *            the time unit of the time parameter.
+	 */
+	public void setTimerSpinTime(long time, TimeUnit unit) {
+		if (unit == null) {
+			throw new NullPointerException("Time unit cannot be null.");
+		}
+
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("It is not possible to set timer spin time of launched application.");
+			}
+
+			this.timerSpinNanos = Math.max(unit.toNanos(time), 0);
+		}
+	}
+
+	/**
+	 * Returns the time before execution of the next scheduled action, when the
+	 * idle main application thread stops parking and busy-waits for the
+	 * action.
+	 * 
+	 * @see Application#setTimerSpinTime(long, TimeUnit)
+	 * @param unit
+	 *            the time unit of the returned value.
+	 * @return the spin time, or 0, if the thread only parks.
+	 */
+	public long getTimerSpinTime(TimeUnit unit) {
+		if (unit == null) {
+			throw new NullPointerException("Time unit cannot be null.");
+		}
+
+		synchronized (lock) {
+			return unit.convert(timerSpinNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Sets the execution time budget of an action. If execution of an action
+	 * (e.g., a message listener) in an event loop exceeds the budget, the
+	 * action is reported by a watchdog thread: the stack of the thread of the
+	 * event loop and the topic filter of the executed subscription are logged
+	 * and emitted as a system message with the topic
+	 * {@code $SYS/slow-action}. By default, slow actions are not detected.
+	 * 
+	 * @param millis
+	 *            the budget in milliseconds, zero or negative value, if slow
+	 *            actions are not detected.
+	 */
+	public void setSlowActionBudget(int millis) {
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException(
+						"It is not possible to set slow action budget of launched application.");
+			}
+
+			this.slowActionBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+		}
+	}
+
+	/**
+	 * Returns the execution time budget of an action.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending publication.
+	 * @see Application#setSlowActionBudget(int)
+	 * @return the budget in milliseconds, or 0, if slow actions are not
+	 *         detected.
 	 */
-	public Cancellable publishLater(Message message, long delay, TimeUnit unit) {
-		return enqueueScheduledAction(createPublishAction(message),
-				new Schedule(unit.toMillis(delay), 0, Schedule.NONE));
+	public int getSlowActionBudget() {
+		return (int) TimeUnit.NANOSECONDS.toMillis(slowActionBudgetNanos);
 	}
 
 	/**
-	 * Publishes a message at fixed rate analogously to
-	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
+	 * Returns the number of detected slow actions.
 	 * 
-	 * @param message
-	 *            the message to be published
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param period
-	 *            the desired period between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
+	 * @see Application#setSlowActionBudget(int)
+	 * @return the number of slow actions.
+	 */
+	public long getSlowActionCount() {
+		return slowActionCount.get();
+	}
+
+	/**
+	 * Returns the numbers of detected slow actions by topic filters of
+	 * subscriptions whose message listeners exceeded the budget. Slow actions
+	 * that are not executions of message listeners are counted by their kind
+	 * (e.g., "(publish)").
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending publications.
+	 * @see Application#setSlowActionBudget(int)
+	 * @return the map from topic filters to numbers of slow actions.
 	 */
-	public Cancellable publishAtFixedRate(Message message, long initialDelay, long period, TimeUnit unit) {
-		return enqueueScheduledAction(createPublishAction(message),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(period), Schedule.FIXED_RATE));
+	public Map<String, Long> getSlowActionCounts() {
+		Map<String, Long> result = new HashMap<>();
+		for (Map.Entry<String, AtomicLong> entry : slowActionCounts.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().get());
+		}
+
+		return result;
 	}
 
 	/**
-	 * Publishes a message with a fixed delay analogously to
-	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
+	 * Detects slow actions in event loops. The method is executed in the
+	 * watchdog thread.
+	 */
+	private void runWatchdog() {
+		final long budget = slowActionBudgetNanos;
+		final long checkPeriod = Math.max(budget / 2, TimeUnit.MILLISECONDS.toNanos(1));
+		final EventLoop[] watchedEventLoops = eventLoops;
+		final long[] reportedStartTimes = new long[watchedEventLoops.length];
+		while (!exitRequested) {
+			LockSupport.parkNanos(this, checkPeriod);
+			for (int i = 0; i < watchedEventLoops.length; i++) {
+				EventLoop eventLoop = watchedEventLoops[i];
+				long startTime = eventLoop.actionStartTime;
+				if ((startTime == 0) || (startTime == reportedStartTimes[i])) {
+					continue;
+				}
+
+				long elapsedTime = System.nanoTime() - startTime;
+				if (elapsedTime <= budget) {
+					continue;
+				}
+
+				Action action = eventLoop.currentAction;
+				String topicFilter = eventLoop.currentTopicFilter;
+				StackTraceElement[] stackTrace = eventLoop.thread.getStackTrace();
+
+				// the action could finish while the stack was captured
+				if (eventLoop.actionStartTime != startTime) {
+					continue;
+				}
+
+				reportedStartTimes[i] = startTime;
+				reportSlowAction(eventLoop, action, topicFilter, elapsedTime, stackTrace);
+			}
+		}
+	}
+
+	/**
+	 * Reports a slow action. The method is executed in the watchdog thread.
 	 * 
-	 * @param message
-	 *            the message to be published
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param delay
-	 *            the delay between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
+	 * @param eventLoop
+	 *            the event loop that executes the action.
+	 * @param action
+	 *            the action.
+	 * @param topicFilter
+	 *            the topic filter of the subscription whose message listener
+	 *            is executed, or null.
+	 * @param elapsedTime
+	 *            the execution time of the action in nanoseconds.
+	 * @param stackTrace
+	 *            the stack trace of the thread of the event loop.
+	 */
+	private void reportSlowAction(EventLoop eventLoop, Action action, String topicFilter, long elapsedTime,
+			StackTraceElement[] stackTrace) {
+		String kindName = (action != null) ? action.getKind().name().toLowerCase() : "unknown";
+		String key = (topicFilter != null) ? topicFilter : "(" + kindName + ")";
+
+		slowActionCount.incrementAndGet();
+		AtomicLong counter = slowActionCounts.get(key);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = slowActionCounts.putIfAbsent(key, newCounter);
+			if (counter == null) {
+				counter = newCounter;
+			}
+		}
+		counter.incrementAndGet();
+
+		StringBuilder report = new StringBuilder();
+		report.append("thread=").append(eventLoop.thread.getName()).append('\n');
+		report.append("kind=").append(kindName).append('\n');
+		if (topicFilter != null) {
+			report.append("topicFilter=").append(topicFilter).append('\n');
+		}
+		report.append("elapsed=").append(TimeUnit.NANOSECONDS.toMillis(elapsedTime)).append(" ms\n");
+		for (StackTraceElement element : stackTrace) {
+			report.append("\tat ").append(element).append('\n');
+		}
+
+		String content = report.toString();
+		logger.log(Level.WARNING, "Slow action detected:\n" + content);
+		systemGateway.emitSystemMessage("slow-action", content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Publishes collected metrics as system messages. The method is executed
+	 * in the main application thread.
+	 */
+	private void publishMetrics() {
+		emitMetric("queue-depth", Long.toString(getQueueDepth()));
+		emitMetric("peak-queue-depth", Long.toString(getPeakQueueDepth()));
+		emitMetric("scheduled-actions", Integer.toString(getScheduledActionCount()));
+		emitMetric("scheduling-jitter", getSchedulingJitterHistogram().toString());
+		emitMetric("executor/queued-tasks", Long.toString(getExecutorQueuedTaskCount()));
+		emitMetric("executor/active-threads", Integer.toString(getExecutorActiveThreadCount()));
+		emitMetric("executor/pool-size", Integer.toString(getExecutorPoolSize()));
+		emitMetric("executor/steals", Long.toString(getExecutorStealCount()));
+		for (ActionKind kind : ActionKind.values()) {
+			String kindName = kind.name().toLowerCase();
+			emitMetric("wait-time/" + kindName, getQueueWaitTimeHistogram(kind).toString());
+			emitMetric("execution-time/" + kindName, getExecutionTimeHistogram(kind).toString());
+		}
+	}
+
+	/**
+	 * Emits a metric as a system message with topic
+	 * {@code $SYS/metrics/<name>}.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending publications.
+	 * @param name
+	 *            the name of metric.
+	 * @param content
+	 *            the content of the message.
 	 */
-	public Cancellable publishWithFixedDelay(Message message, long initialDelay, long delay, TimeUnit unit) {
-		return enqueueScheduledAction(createPublishAction(message),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(delay), Schedule.FIXED_DELAY));
+	private void emitMetric(String name, String content) {
+		systemGateway.emitSystemMessage("metrics/" + name, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Returns the number of received messages whose matching subscriptions
+	 * were found in the subscriber cache.
+	 * 
+	 * @return the number of cache hits.
+	 */
+	public long getSubscriberCacheHits() {
+		long result = 0;
+		synchronized (lock) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				if (gatewayHolder.subscriberCache != null) {
+					result += gatewayHolder.subscriberCache.getHits();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the number of received messages whose matching subscriptions
+	 * were not found in the subscriber cache.
+	 * 
+	 * @return the number of cache misses.
+	 */
+	public long getSubscriberCacheMisses() {
+		long result = 0;
+		synchronized (lock) {
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				if (gatewayHolder.subscriberCache != null) {
+					result += gatewayHolder.subscriberCache.getMisses();
+				}
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Saves state of application. The method must be executed in the main
+	 * application thread.
+	 */
+	private void saveState() {
+		if (persistentStorage == null) {
+			return;
+		}
+
+		logger.log(Level.INFO, "Saving state of application.");
+
+		// retrieve bundles
+		Map<String, Bundle> bundles = new HashMap<>();
+		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+			String gatewayId = gatewayHolder.gateway.getId();
+			Map<String, Bundle> gatewayBundles = saveGatewayState(gatewayHolder);
+
+			String gatewayBundlePrefix = gatewayId + "/";
+			for (Map.Entry<String, Bundle> entry : gatewayBundles.entrySet()) {
+				if ((entry.getKey() != null) && (entry.getValue() != null)) {
+					if (!entry.getKey().startsWith(gatewayBundlePrefix)) {
+						logger.log(Level.WARNING, "The gateway \"" + gatewayId + "\" produced a bundle with id (\""
+								+ entry.getKey() + "\") whose prefix is not the gateway identifier.");
+					}
+
+					bundles.put(entry.getKey(), entry.getValue());
+				}
+			}
+		}
+
+		// persistently store bundles
+		try {
+			persistentStorage.saveBundles(bundles);
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Saving state to persistent storage failed.", e);
+		}
+
+		systemGateway.emitSystemMessage("state-saved", null);
+		logger.log(Level.INFO, "State of application saved.");
+	}
+
+	/**
+	 * Retrieves bundles with state of a gateway. If the gateway is handled by
+	 * a running event loop other than the main event loop, the state is saved
+	 * in the thread of the event loop.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway.
+	 * @return the map with bundles storing state of the gateway.
+	 */
+	private Map<String, Bundle> saveGatewayState(final GatewayHolder gatewayHolder) {
+		final Map<String, Bundle> gatewayBundles = new HashMap<>();
+		final EventLoop eventLoop = gatewayHolder.eventLoop;
+		final Gateway gateway = gatewayHolder.gateway;
+		final CountDownLatch stateSaved = new CountDownLatch(1);
+		Action saveAction = new Action() {
+			@Override
+			void execute() {
+				try {
+					gateway.onSaveState(gatewayBundles);
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Saving the state of the gateway \"" + gateway.getId() + "\" failed.", e);
+				} finally {
+					stateSaved.countDown();
+				}
+			}
+
+			@Override
+			EventLoop getEventLoop() {
+				return eventLoop;
+			}
+
+			@Override
+			ActionLane getLane() {
+				return ActionLane.SYSTEM;
+			}
+		};
+
+		if ((eventLoop == mainLoop) || !eventLoop.thread.isAlive()) {
+			saveAction.execute();
+			return gatewayBundles;
+		}
+
+		// wait until the state is saved in the event loop of the gateway (or
+		// the event loop terminates)
+		enqueueAction(saveAction);
+		boolean interrupted = false;
+		while (stateSaved.getCount() > 0) {
+			try {
+				if (!stateSaved.await(100, TimeUnit.MILLISECONDS) && !eventLoop.thread.isAlive()
+						&& (stateSaved.getCount() > 0)) {
+					saveAction.execute();
+				}
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		return gatewayBundles;
+	}
+
+	/**
+	 * Launches the application.
+	 */
+	public void launch() {
+		// initialize modules
+		List<Module> modulesToInit;
+		synchronized (lock) {
+			immutableModules = true;
+			modulesToInit = new ArrayList<>(modules);
+		}
+
+		if (!modulesToInit.isEmpty()) {
+			logger.log(Level.INFO, "Initializing modules.");
+			for (Module module : modulesToInit) {
+				try {
+					module.initialize();
+				} catch (Exception e) {
+					logger.log(Level.SEVERE, "Initialization of module failed.", e);
+					throw e;
+				}
+			}
+			logger.log(Level.INFO, "Modules initialized.");
+		}
+
+		// start application
+		synchronized (lock) {
+			if (launched) {
+				throw new IllegalStateException("Application has been already launched.");
+			}
+
+			launched = true;
+
+			// freeze the topology of gateways and data items
+			frozenGatewayHolders = new FrozenLookup<>(gatewayHolders);
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				if (gatewayHolder.gateway instanceof DataGateway) {
+					((DataGateway) gatewayHolder.gateway).freeze();
+				}
+			}
+
+			// create caches of resolved subscriptions
+			for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+				gatewayHolder.subscriberCache = new TopicCache<>(subscriberCacheSize);
+			}
+
+			// create buffers of received messages that can be replaced
+			if (actionQueueCapacity > 0) {
+				for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+					OverloadPolicy policy = gatewayHolder.overloadPolicy;
+					if ((policy == OverloadPolicy.CONFLATE) || (policy == OverloadPolicy.DROP_OLDEST)) {
+						MessageBuffer[] messageBuffers = new MessageBuffer[ActionLane.values().length];
+						for (int i = 0; i < messageBuffers.length; i++) {
+							messageBuffers[i] = new MessageBuffer(policy == OverloadPolicy.CONFLATE);
+						}
+						gatewayHolder.messageBuffers = messageBuffers;
+					}
+				}
+			}
+		}
+
+		// schedule publication of metrics
+		int metricsPeriod = getMetricsPeriod();
+		if (metricsEnabled && (metricsPeriod > 0)) {
+			invokeAtFixedRate(new Runnable() {
+				@Override
+				public void run() {
+					publishMetrics();
+				}
+			}, metricsPeriod, metricsPeriod, TimeUnit.SECONDS);
+		}
+
+		applicationThread.start();
+
+		// add shutdown hook
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				requestApplicationExit();
+
+				// wait for termination
+				synchronized (finalizationLock) {
+					try {
+						while (!finalized) {
+							finalizationLock.wait();
+						}
+					} catch (Exception ignore) {
+
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns whether the application is launched.
+	 * 
+	 * @return true, if the application is launched.
+	 */
+	public boolean isLaunched() {
+		synchronized (lock) {
+			return launched;
+		}
+	}
+
+	/**
+	 * Adds shutdown hook that is executed during termination of the
+	 * application.
+	 * 
+	 * @param shutdownHook
+	 *            the shutdown hook.
+	 */
+	public void addShutdownHook(Runnable shutdownHook) {
+		if (shutdownHook == null) {
+			throw new NullPointerException("The shutdown hook cannot be null.");
+		}
+
+		synchronized (lock) {
+			shutdownHooks.add(shutdownHook);
+		}
 	}
 
 	/**
-	 * Publishes messages produced by the message producer at fixed rate
-	 * analogously to
-	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
-	 * 
-	 * @param messageFactory
-	 *            the message factory that produces messages to be published.
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param period
-	 *            the desired period between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
+	 * Removes a shutdown hook.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending publications.
+	 * @param shutdownHook
+	 *            the shutdown hook.
 	 */
-	public Cancellable publishAtFixedRate(MessageFactory messageFactory, long initialDelay, long period,
-			TimeUnit unit) {
-		if (messageFactory == null) {
-			throw new NullPointerException("Message factory cannot be null.");
+	public void removeShutdownHook(Runnable shutdownHook) {
+		synchronized (lock) {
+			shutdownHooks.remove(shutdownHook);
 		}
-
-		return enqueueScheduledAction(createPublishFromFactoryAction(messageFactory),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(period), Schedule.FIXED_RATE));
 	}
 
 	/**
-	 * Publishes messages produced by the message producer with a fixed delay
-	 * analogously to
-	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
-	 * 
-	 * @param messageFactory
-	 *            the message factory that produces messages to be published.
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param delay
-	 *            the delay between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
-	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending publications.
+	 * Initializes and executes the application. The method is executed in the
+	 * main application thread (serialization and event handling thread).
 	 */
-	public Cancellable publishWithFixedDelay(MessageFactory messageFactory, long initialDelay, long delay,
-			TimeUnit unit) {
-		if (messageFactory == null) {
-			throw new NullPointerException("Message factory cannot be null.");
+	private void executeApplication() {
+		List<Gateway> startedGateways = null;
+		List<EventLoop> startedEventLoops = new ArrayList<>();
+		Thread watchdogThread = null;
+		boolean eventLoopStarted = false;
+		try {
+			// start gateways
+			startedGateways = startGateways();
+
+			// if all gateways are started, start event loops
+			if (startedGateways.size() == gatewayHolders.size()) {
+				for (EventLoop eventLoop : eventLoops) {
+					if (eventLoop != mainLoop) {
+						eventLoop.thread.start();
+						startedEventLoops.add(eventLoop);
+					}
+				}
+
+				// start detection of slow actions
+				if (slowActionBudgetNanos > 0) {
+					watchdogThread = new Thread(new Runnable() {
+						@Override
+						public void run() {
+							runWatchdog();
+						}
+					}, WATCHDOG_THREAD_NAME);
+					watchdogThread.setDaemon(true);
+					watchdogThread.start();
+				}
+
+				logger.log(Level.INFO, "Main thread of the application started.");
+				eventLoopStarted = true;
+				runEventLoop();
+				logger.log(Level.INFO, "Main thread of the application stopped.");
+			}
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Main thread of the application failed.", e);
+		} finally {
+			// stop additional event loops
+			stopEventLoops(startedEventLoops);
+
+			// cancel invocations that will never be executed
+			for (Invocation<?> invocation : pendingInvocations) {
+				invocation.cancel(false);
+			}
+			if (watchdogThread != null) {
+				LockSupport.unpark(watchdogThread);
+			}
+
+			// execute shutdown hooks
+			List<Runnable> shutdownHooks = new ArrayList<>();
+			synchronized (lock) {
+				shutdownHooks.addAll(this.shutdownHooks);
+			}
+
+			for (Runnable shutdownHook : shutdownHooks) {
+				if (shutdownHook != null) {
+					try {
+						shutdownHook.run();
+					} catch (Exception e) {
+						logger.log(Level.SEVERE, "Shutdown hook threw an exception.", e);
+					}
+				}
+			}
+
+			if (!shutdownHooks.isEmpty()) {
+				logger.log(Level.INFO, "Shutdown hooks executed.");
+			}
+
+			// save state if the application started normally
+			if (eventLoopStarted) {
+				saveState();
+			}
+
+			// close all started gateways
+			if (startedGateways != null) {
+				Collections.reverse(startedGateways);
+				stopGateways(startedGateways);
+			}
+
+			ExecutorService executorServiceToStop;
+			synchronized (lock) {
+				executorServiceToStop = executorService;
+			}
+
+			if (executorServiceToStop != null) {
+				executorServiceToStop.shutdown();
+			}
 		}
 
-		return enqueueScheduledAction(createPublishFromFactoryAction(messageFactory),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(delay), Schedule.FIXED_DELAY));
+		logger.log(Level.INFO, "Application stopped.");
 	}
 
 	/**
-	 * Executes a code with a delay.
-	 * 
-	 * @param runnable
-	 *            the runnable (code) to be executed.
-	 * @param delay
-	 *            the time from now to delay execution.
-	 * @param unit
-	 *            the time unit of the delay parameter.
+	 * Executes an additional event loop. The method is executed in the thread
+	 * of the event loop.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending invocation.
+	 * @param eventLoop
+	 *            the event loop.
 	 */
-	public Cancellable invokeLater(Runnable runnable, long delay, TimeUnit unit) {
-		return enqueueScheduledAction(createActionWithRunnable(runnable),
-				new Schedule(unit.toMillis(delay), 0, Schedule.NONE));
+	private void runSecondaryEventLoop(EventLoop eventLoop) {
+		final int batchSize = actionBatchSize;
+		while (!exitRequested) {
+			if (metricsEnabled) {
+				eventLoop.updatePeakQueueDepth();
+			}
+
+			// handle a batch of actions from each lane
+			int executedActionCount = 0;
+			for (ActionQueue lane : eventLoop.lanes) {
+				executedActionCount += executeActions(eventLoop, lane, batchSize);
+			}
+
+			// wait for new action (if necessary)
+			if (executedActionCount == 0) {
+				eventLoop.parked = true;
+				try {
+					if (!exitRequested && !eventLoop.hasPendingAction()) {
+						LockSupport.park(this);
+					}
+				} finally {
+					eventLoop.parked = false;
+				}
+			}
+		}
 	}
 
 	/**
-	 * Executes a code at fixed rate in the event queue of the application
-	 * analogously to
-	 * {@link ScheduledExecutorService#scheduleAtFixedRate(Runnable, long, long, TimeUnit)}.
-	 * 
-	 * @param runnable
-	 *            the runnable (code) to be executed.
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param period
-	 *            the desired period between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
+	 * Stops additional event loops and waits for their termination. Pending
+	 * actions of the event loops are not executed.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending invocations.
+	 * @param eventLoopsToStop
+	 *            the event loops to be stopped.
 	 */
-	public Cancellable invokeAtFixedRate(Runnable runnable, long initialDelay, long period, TimeUnit unit) {
-		if (runnable == null) {
-			throw new NullPointerException("Runnable cannot be null.");
+	private void stopEventLoops(List<EventLoop> eventLoopsToStop) {
+		exitRequested = true;
+		for (EventLoop eventLoop : eventLoopsToStop) {
+			LockSupport.unpark(eventLoop.thread);
+			eventLoop.releaseBlockedProducers();
 		}
 
-		return enqueueScheduledAction(createActionWithRunnable(runnable),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(period), Schedule.FIXED_RATE));
+		for (EventLoop eventLoop : eventLoopsToStop) {
+			boolean interrupted = false;
+			while (eventLoop.thread.isAlive()) {
+				try {
+					eventLoop.thread.join();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
 	}
 
 	/**
-	 * Executes a code with a fixed delay in the event queue of the application
-	 * analogously to
-	 * {@link ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, TimeUnit)}.
-	 * 
-	 * @param runnable
-	 *            the runnable (code) to be executed.
-	 * @param initialDelay
-	 *            the time to delay first publication.
-	 * @param delay
-	 *            the delay between successive publications.
-	 * @param unit
-	 *            the time unit of the initialDelay and period parameters.
+	 * Returns a list of gateways ordered in an appropriate activation order.
+	 * Data gateways are started as the last.
 	 * 
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         pending invocations.
+	 * @return the list of gateways.
 	 */
-	public Cancellable invokeWithFixedDelay(Runnable runnable, long initialDelay, long delay, TimeUnit unit) {
-		if (runnable == null) {
-			throw new NullPointerException("Runnable cannot be null.");
+	private List<Gateway> constructGatewayActivationOrder() {
+		List<Gateway> result = new ArrayList<>();
+
+		// add system gateway
+		result.add(systemGateway);
+
+		// add all gateways that are not data gateways (ignore system gateway)
+		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+			if (!(gatewayHolder.gateway instanceof DataGateway) && !(gatewayHolder.gateway instanceof SystemGateway)) {
+				result.add(gatewayHolder.gateway);
+			}
 		}
 
-		return enqueueScheduledAction(createActionWithRunnable(runnable),
-				new Schedule(unit.toMillis(initialDelay), unit.toMillis(delay), Schedule.FIXED_DELAY));
+		// add data gateways
+		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
+			if (gatewayHolder.gateway instanceof DataGateway) {
+				result.add(gatewayHolder.gateway);
+			}
+		}
+
+		return result;
 	}
 
 	/**
-	 * Creates action that executes a runnable.
+	 * Start registered messaging gateways and returns list of started gateways.
 	 * 
-	 * @param runnable
-	 *            the runnable to be executed.
-	 * @return the action.
+	 * @return the list of started gateways in order of start.
 	 */
-	private Action createActionWithRunnable(final Runnable runnable) {
-		return new Action() {
-			@Override
-			public void execute() {
-				runnable.run();
+	private List<Gateway> startGateways() {
+		List<Gateway> startedGateways = new ArrayList<>();
+
+		// load persistent bundles of all gateways
+		Map<String, Bundle> persistentBundles = null;
+		if (persistentStorage != null) {
+			try {
+				persistentBundles = persistentStorage.loadBundles();
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Loading data from persistent storage failed.", e);
+				return startedGateways;
 			}
-		};
+		}
+
+		if (persistentBundles == null) {
+			persistentBundles = Collections.emptyMap();
+		} else {
+			persistentBundles.remove(null);
+		}
+
+		// start gateways
+		for (Gateway gateway : constructGatewayActivationOrder()) {
+			String gatewayId = gateway.getId();
+			String gatewayPrefix = gatewayId + "/";
+
+			Map<String, Bundle> gatewayBundles = new HashMap<>();
+			for (Map.Entry<String, Bundle> entry : persistentBundles.entrySet()) {
+				if (entry.getKey().startsWith(gatewayPrefix)) {
+					gatewayBundles.put(entry.getKey(), entry.getValue());
+				}
+			}
+
+			try {
+				logger.log(Level.INFO, "Gateway \"" + gatewayId + "\" is starting.");
+				gateway.start(gatewayBundles);
+				startedGateways.add(gateway);
+				logger.log(Level.INFO, "Gateway \"" + gatewayId + "\" started.");
+			} catch (Throwable e) {
+				logger.log(Level.SEVERE, "Unable to start the gateway \"" + gatewayId + "\" due to thrown exception.",
+						e);
+			}
+		}
+
+		return startedGateways;
 	}
 
 	/**
-	 * Creates an action that publishes a message.
-	 * 
-	 * @param message
-	 *            the message to be published.
-	 * @return the action.
+	 * Executes the main application code (serialization and event loop).
 	 */
-	private Action createPublishAction(Message message) {
-		String topicName = message.getTopic();
-		if (!isValidTopicName(topicName)) {
-			throw new MessagingException("Invalid topic.");
-		}
+	private void runEventLoop() {
+		// execution loop
+		long now = MonotonicClock.currentTimeNanos();
+		long processedPriorityActionCount = 0;
 
-		int slashIdx = topicName.indexOf('/');
-		if (slashIdx < 0) {
-			throw new MessagingException("Invalid topic: missing subtopic of gateway.");
-		}
+		final boolean autosaveEnabled = (persistentStorage != null) && (autosavePeriodInSeconds > 0);
+		final long autosaveNanosPeriod = autosaveEnabled ? TimeUnit.SECONDS.toNanos(autosavePeriodInSeconds) : 0;
+		long lastSave = now;
 
-		String gatewayId = topicName.substring(0, slashIdx);
-		String localizedTopicName = topicName.substring(slashIdx + 1);
+		final int batchSize = actionBatchSize;
+		final List<Schedule> readySchedules = new ArrayList<>();
 
-		GatewayHolder targetGatewayHolder = null;
-		synchronized (lock) {
-			targetGatewayHolder = gatewayHolders.get(gatewayId);
-		}
+		final ActionQueue systemLane = mainLoop.lanes[ActionLane.SYSTEM.ordinal()];
+		final ActionQueue controlLane = mainLoop.lanes[ActionLane.CONTROL.ordinal()];
+		final ActionQueue scheduledLane = mainLoop.lanes[ActionLane.SCHEDULED.ordinal()];
+		final ActionQueue bulkLane = mainLoop.lanes[ActionLane.BULK.ordinal()];
 
-		if (targetGatewayHolder == null) {
-			throw new MessagingException("Invalid topic: unknown gateway \"" + gatewayId + "\".");
-		}
+		while (!exitRequested) {
+			// handle batches of actions in lanes with higher priority than
+			// scheduled actions
+			if (metricsEnabled) {
+				mainLoop.updatePeakQueueDepth();
+				scheduledActionCount = timingWheel.size();
+			}
 
-		if (!targetGatewayHolder.gateway.isValidTopicName(localizedTopicName)) {
-			throw new MessagingException("Invalid topic for gateway \"" + gatewayId + "\".");
-		}
+			int executedActionCount = 0;
+			int executedPriorityActionCount = executeActions(mainLoop, systemLane, batchSize);
+			executedPriorityActionCount += executeActions(mainLoop, controlLane, batchSize);
+			processedPriorityActionCount += executedPriorityActionCount;
+			executedActionCount += executedPriorityActionCount;
+
+			// retrieve ready scheduled actions
+			applyPendingSchedules();
+			if (!timingWheel.isEmpty()) {
+				now = MonotonicClock.currentTimeNanos();
+				timingWheel.expire(now / TIMER_TICK_NANOS);
+				while (readySchedules.size() < batchSize) {
+					Schedule schedule = (Schedule) timingWheel.peekExpired();
+					if ((schedule == null) || (schedule.precedingActionCount > processedPriorityActionCount)) {
+						break;
+					}
 
-		final Message localizedMessage = new Message(localizedTopicName, message.getPayload());
-		final Gateway gateway = targetGatewayHolder.gateway;
-		return new Action() {
-			@Override
-			public void execute() {
-				gateway.onPublish(localizedMessage);
+					timingWheel.pollExpired();
+					if (schedule.cancelled) {
+						continue;
+					}
+
+					readySchedules.add(schedule);
+					if (metricsEnabled) {
+						schedule.readyTime = System.nanoTime() - (now - schedule.dueTime);
+					}
+
+					// reschedule if the schedule defines repetitions
+					if (schedule.repetitionMode == Schedule.FIXED_DELAY) {
+						schedule.dueTime = now + schedule.period;
+					} else if (schedule.repetitionMode == Schedule.FIXED_RATE) {
+						long nextExecutionTime = schedule.dueTime + schedule.period;
+						if (nextExecutionTime <= now) {
+							nextExecutionTime = now + schedule.period;
+						}
+						schedule.dueTime = nextExecutionTime;
+					} else {
+						continue;
+					}
+
+					schedule.expirationTime = schedule.dueTime / TIMER_TICK_NANOS;
+					schedule.precedingActionCount = mainLoop.getPriorityActionCount();
+					timingWheel.add(schedule);
+				}
 			}
-		};
+
+			// handle scheduled actions
+			for (Schedule schedule : readySchedules) {
+				if (exitRequested) {
+					break;
+				}
+
+				// the action could be cancelled by a preceding action
+				if (!schedule.cancelled) {
+					if (metricsEnabled) {
+						schedulingJitter.record(System.nanoTime() - schedule.readyTime);
+					}
+					executeScheduledAction(schedule.action, schedule.readyTime);
+				}
+				executedActionCount++;
+			}
+			readySchedules.clear();
+			executedActionCount += executeActions(mainLoop, scheduledLane, batchSize);
+
+			// handle a batch of bulk actions
+			executedActionCount += executeActions(mainLoop, bulkLane, batchSize);
+
+			// wait for new action (if necessary)
+			if (executedActionCount == 0) {
+				waitForAction();
+				continue;
+			}
+
+			// save state (if necessary)
+			if (autosaveEnabled) {
+				now = MonotonicClock.currentTimeNanos();
+				if (now - lastSave > autosaveNanosPeriod) {
+					saveState();
+					lastSave = now;
+				}
+			}
+		}
 	}
 
 	/**
-	 * Creates an action that publishes a message created by a message factory.
+	 * Executes a scheduled action in the main application thread or forwards
+	 * the action to the event loop that executes it.
 	 * 
-	 * @param messageFactory
-	 *            the message factory.
-	 * @return the action.
+	 * @param action
+	 *            the scheduled action.
+	 * @param readyTime
+	 *            the time in nanoseconds when the action became ready for
+	 *            execution (used only if metrics are enabled).
 	 */
-	private Action createPublishFromFactoryAction(final MessageFactory messageFactory) {
-		return new Action() {
+	private void executeScheduledAction(final Action action, long readyTime) {
+		final EventLoop eventLoop = action.getEventLoop();
+		if (eventLoop == mainLoop) {
+			if (metricsEnabled) {
+				executeInstrumentedAction(mainLoop, action, ActionKind.SCHEDULED, readyTime);
+			} else {
+				executeAction(mainLoop, action);
+			}
+			return;
+		}
+
+		// scheduled actions are reused, hence the action is wrapped
+		eventLoop.enqueue(new Action() {
 			@Override
 			void execute() {
-				publishFactoryMessage(messageFactory);
+				action.execute();
 			}
-		};
+
+			@Override
+			EventLoop getEventLoop() {
+				return eventLoop;
+			}
+
+			@Override
+			ActionLane getLane() {
+				return ActionLane.SCHEDULED;
+			}
+
+			@Override
+			ActionKind getKind() {
+				return ActionKind.SCHEDULED;
+			}
+		});
 	}
 
 	/**
-	 * Sets the persistent storage utilized to restore and save state of data
-	 * items.
+	 * Executes a batch of pending actions of a lane in the thread of an event
+	 * loop.
 	 * 
-	 * @param storage
-	 *            the persistent storage.
+	 * @param eventLoop
+	 *            the event loop.
+	 * @param lane
+	 *            the queue of actions of the lane.
+	 * @param maxCount
+	 *            the maximal number of executed actions.
+	 * @return the number of executed actions.
 	 */
-	public void setPersistentStorage(PersistentStorage storage) {
-		synchronized (lock) {
-			if (launched) {
-				throw new IllegalStateException(
-						"It is not possible to set persistent storage of launched application.");
+	private int executeActions(EventLoop eventLoop, ActionQueue lane, int maxCount) {
+		final boolean instrumented = metricsEnabled;
+		int executedActionCount = 0;
+		while ((executedActionCount < maxCount) && !exitRequested) {
+			Action action = lane.poll();
+			if (action == null) {
+				break;
 			}
 
-			this.persistentStorage = storage;
+			eventLoop.signalCapacity();
+
+			if (instrumented && (action.enqueueTime != 0)) {
+				executeInstrumentedAction(eventLoop, action, action.getKind(), action.enqueueTime);
+			} else {
+				executeAction(eventLoop, action);
+			}
+			executedActionCount++;
 		}
+
+		return executedActionCount;
 	}
 
 	/**
-	 * Returns the persistent storage.
+	 * Executes an action in the thread of an event loop and records its wait
+	 * time and execution time.
 	 * 
-	 * @see Application#setPersistentStorage(PersistentStorage)
-	 * @return the persistent storage.
+	 * @param eventLoop
+	 *            the event loop.
+	 * @param action
+	 *            the action.
+	 * @param kind
+	 *            the kind of the action.
+	 * @param readyTime
+	 *            the time in nanoseconds when the action became ready for
+	 *            execution.
 	 */
-	public PersistentStorage getPersistentStorage() {
-		synchronized (lock) {
-			return persistentStorage;
-		}
+	private void executeInstrumentedAction(EventLoop eventLoop, Action action, ActionKind kind, long readyTime) {
+		long startTime = System.nanoTime();
+		executeAction(eventLoop, action);
+		long endTime = System.nanoTime();
+		eventLoop.waitTimes[kind.ordinal()].record(startTime - readyTime);
+		eventLoop.executionTimes[kind.ordinal()].record(endTime - startTime);
 	}
 
 	/**
-	 * Sets the period in seconds after which state of application is
-	 * automatically saved.
+	 * Executes an action in the thread of an event loop.
 	 * 
-	 * @param seconds
-	 *            the period in seconds, zero or negative value indicate that
-	 *            state is not saved continuously.
+	 * @param eventLoop
+	 *            the event loop.
+	 * @param action
+	 *            the action.
 	 */
-	public void setAutosavePeriod(int seconds) {
-		synchronized (lock) {
-			if (launched) {
-				throw new IllegalStateException("It is not possible to set autosave period of launched application.");
-			}
-
-			this.autosavePeriodInSeconds = Math.max(seconds, 0);
+	private void executeAction(EventLoop eventLoop, Action action) {
+		final boolean watched = slowActionBudgetNanos > 0;
+		if (watched) {
+			eventLoop.currentAction = action;
+			eventLoop.actionStartTime = System.nanoTime() | 1;
 		}
-	}
 
-	/**
-	 * Returns auto-save period in seconds.
-	 * 
-	 * @see Application#setAutosavePeriod(int)
-	 * @return the auto-save period in seconds.
-	 */
-	public int getAutosavePeriod() {
-		synchronized (lock) {
-			return autosavePeriodInSeconds;
+		try {
+			action.execute();
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Execution of action failed.", e);
+		} finally {
+			if (watched) {
+				eventLoop.actionStartTime = 0;
+				eventLoop.currentAction = null;
+				eventLoop.currentTopicFilter = null;
+			}
 		}
 	}
 
 	/**
-	 * Saves state of application. The method must be executed in the main
-	 * application thread.
+	 * Parks the main application thread until a new action is available, the
+	 * first scheduled action should be executed, or exit is requested. If the
+	 * first scheduled action should be executed within the timer spin time,
+	 * the thread busy-waits instead of parking.
 	 */
-	private void saveState() {
-		if (persistentStorage == null) {
-			return;
-		}
-
-		logger.log(Level.INFO, "Saving state of application.");
-
-		// retrieve bundles
-		Map<String, Bundle> bundles = new HashMap<>();
-		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
-			String gatewayId = gatewayHolder.gateway.getId();
-			Map<String, Bundle> gatewayBundles = new HashMap<>();
-			try {
-				gatewayHolder.gateway.onSaveState(gatewayBundles);
-			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Saving the state of the gateway \"" + gatewayId + "\" failed.", e);
+	private void waitForAction() {
+		// the flag must be set before the queues are inspected, so that any
+		// concurrent producer either sees the flag or its action is seen here
+		mainLoop.parked = true;
+		try {
+			long nanosDelay = -1;
+			long expirationTime = 0;
+			applyPendingSchedules();
+			if (!timingWheel.isEmpty()) {
+				expirationTime = timingWheel.nextExpirationTime() * TIMER_TICK_NANOS;
+				nanosDelay = expirationTime - MonotonicClock.currentTimeNanos();
+				if (nanosDelay <= 0) {
+					return;
+				}
 			}
 
-			String gatewayBundlePrefix = gatewayId + "/";
-			for (Map.Entry<String, Bundle> entry : gatewayBundles.entrySet()) {
-				if ((entry.getKey() != null) && (entry.getValue() != null)) {
-					if (!entry.getKey().startsWith(gatewayBundlePrefix)) {
-						logger.log(Level.WARNING, "The gateway \"" + gatewayId + "\" produced a bundle with id (\""
-								+ entry.getKey() + "\") whose prefix is not the gateway identifier.");
-					}
+			if (exitRequested || mainLoop.hasPendingAction()) {
+				return;
+			}
 
-					bundles.put(entry.getKey(), entry.getValue());
+			if (nanosDelay < 0) {
+				LockSupport.park(this);
+			} else if (nanosDelay > timerSpinNanos) {
+				// wake up earlier to spin for the rest of the delay
+				LockSupport.parkNanos(this, nanosDelay - timerSpinNanos);
+			} else {
+				// the spinning ends when a new action or schedule is submitted
+				while ((MonotonicClock.currentTimeNanos() < expirationTime) && pendingSchedules.isEmpty()
+						&& !exitRequested && !mainLoop.hasPendingAction()) {
+					Thread.yield();
 				}
 			}
+		} finally {
+			mainLoop.parked = false;
 		}
+	}
 
-		// persistently store bundles
-		try {
-			persistentStorage.saveBundles(bundles);
-		} catch (Exception e) {
-			logger.log(Level.SEVERE, "Saving state to persistent storage failed.", e);
+	/**
+	 * Applies submitted and cancelled schedules to the timing wheel. The
+	 * method is invoked in the main application thread.
+	 */
+	private void applyPendingSchedules() {
+		Schedule schedule;
+		while ((schedule = pendingSchedules.poll()) != null) {
+			if (schedule.cancelled) {
+				timingWheel.remove(schedule);
+			} else if (!schedule.isScheduled()) {
+				timingWheel.add(schedule);
+			}
 		}
-
-		systemGateway.emitSystemMessage("state-saved", null);
-		logger.log(Level.INFO, "State of application saved.");
 	}
 
 	/**
-	 * Launches the application.
+	 * Handles a published message for system.
+	 * 
+	 * @param message
+	 *            the message.
 	 */
-	public void launch() {
-		// initialize modules
-		List<Module> modulesToInit;
-		synchronized (lock) {
-			immutableModules = true;
-			modulesToInit = new ArrayList<>(modules);
-		}
+	void handlePublishedSystemMessage(Message message) {
+		String topic = message.getTopic().toLowerCase();
 
-		if (!modulesToInit.isEmpty()) {
-			logger.log(Level.INFO, "Initializing modules.");
-			for (Module module : modulesToInit) {
-				try {
-					module.initialize();
-				} catch (Exception e) {
-					logger.log(Level.SEVERE, "Initialization of module failed.", e);
-					throw e;
-				}
-			}
-			logger.log(Level.INFO, "Modules initialized.");
+		// handle request to exit
+		if ("exit".equals(topic)) {
+			requestApplicationExit();
+			return;
 		}
 
-		// start application
-		synchronized (lock) {
-			if (launched) {
-				throw new IllegalStateException("Application has been already launched.");
-			}
-
-			launched = true;
+		// handle request to save state
+		if ("save".equals(topic)) {
+			saveState();
+			return;
 		}
+	}
 
-		applicationThread.start();
+	/**
+	 * Publishes a message generated by a message factory.
+	 * 
+	 * @param messageFactory
+	 *            the message factory that generates a message to be published.
+	 */
+	private void publishFactoryMessage(MessageFactory messageFactory) {
+		Message message = null;
+		try {
+			message = messageFactory.createMessage();
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Creation of message by factory failed.", e);
+		}
 
-		// add shutdown hook
-		Runtime.getRuntime().addShutdownHook(new Thread() {
-			public void run() {
-				requestApplicationExit();
+		if (message == null) {
+			return;
+		}
 
-				// wait for termination
-				synchronized (finalizationLock) {
-					try {
-						while (!finalized) {
-							finalizationLock.wait();
-						}
-					} catch (Exception ignore) {
+		Action action = null;
+		try {
+			action = createPublishAction(message, false, null);
+		} catch (Exception e) {
+			logger.log(Level.SEVERE, "Message created by message factory cannot be published.", e);
+		}
 
-					}
-				}
+		if (action != null) {
+			if (action.getEventLoop() == mainLoop) {
+				action.execute();
+			} else {
+				enqueueAction(action);
 			}
-		});
+		}
 	}
 
 	/**
-	 * Returns whether the application is launched.
-	 * 
-	 * @return true, if the application is launched.
+	 * Requests the application to exit.
 	 */
-	public boolean isLaunched() {
-		synchronized (lock) {
-			return launched;
+	private void requestApplicationExit() {
+		exitRequested = true;
+		for (EventLoop eventLoop : eventLoops) {
+			LockSupport.unpark(eventLoop.thread);
+			eventLoop.releaseBlockedProducers();
 		}
 	}
 
 	/**
-	 * Adds shutdown hook that is executed during termination of the
-	 * application.
+	 * Silently stop gateways.
 	 * 
-	 * @param shutdownHook
-	 *            the shutdown hook.
+	 * @param gatewaysToStop
+	 *            the list of gateways that should be stopped.
 	 */
-	public void addShutdownHook(Runnable shutdownHook) {
-		if (shutdownHook == null) {
-			throw new NullPointerException("The shutdown hook cannot be null.");
-		}
-
-		synchronized (lock) {
-			shutdownHooks.add(shutdownHook);
+	private void stopGateways(List<Gateway> gatewaysToStop) {
+		for (Gateway gateway : gatewaysToStop) {
+			try {
+				gateway.stop();
+				logger.log(Level.INFO, "Gateway \"" + gateway.getId() + "\" stopped.");
+			} catch (Exception ignore) {
+				logger.log(Level.SEVERE, "Unable to stop the gateway \"" + gateway.getId() + "\".", ignore);
+			}
 		}
 	}
 
 	/**
-	 * Removes a shutdown hook.
+	 * Adds a new action to the queue of actions to be performed.
 	 * 
-	 * @param shutdownHook
-	 *            the shutdown hook.
+	 * @param action
+	 *            the action.
 	 */
-	public void removeShutdownHook(Runnable shutdownHook) {
-		synchronized (lock) {
-			shutdownHooks.remove(shutdownHook);
+	private void enqueueAction(Action action) {
+		if (action == null) {
+			return;
 		}
+
+		action.getEventLoop().enqueue(action);
 	}
 
 	/**
-	 * Initializes and executes the application. The method is executed in the
-	 * main application thread (serialization and event handling thread).
+	 * Adds a new action the should be performed in a repeatable manner with
+	 * respect to given schedule.
+	 * 
+	 * @param action
+	 *            the action to be scheduled.
+	 * @param schedule
+	 *            the schedule of action.
+	 * @return the {@link Cancellable} instance that allows cancellation of the
+	 *         action.
 	 */
-	private void executeApplication() {
-		List<Gateway> startedGateways = null;
-		boolean eventLoopStarted = false;
-		try {
-			// start gateways
-			startedGateways = startGateways();
-
-			// if all gateways are started, start event loop
-			if (startedGateways.size() == gatewayHolders.size()) {
-				logger.log(Level.INFO, "Main thread of the application started.");
-				eventLoopStarted = true;
-				runEventLoop();
-				logger.log(Level.INFO, "Main thread of the application stopped.");
-			}
-		} catch (Exception e) {
-			logger.log(Level.SEVERE, "Main thread of the application failed.", e);
-		} finally {
-			// execute shutdown hooks
-			List<Runnable> shutdownHooks = new ArrayList<>();
-			synchronized (lock) {
-				shutdownHooks.addAll(this.shutdownHooks);
-			}
+	private Cancellable enqueueScheduledAction(Action action, Schedule schedule) {
+		schedule.action = action;
+		schedule.dueTime = MonotonicClock.currentTimeNanos() + schedule.initialDelay;
+		schedule.expirationTime = schedule.dueTime / TIMER_TICK_NANOS;
+		schedule.precedingActionCount = mainLoop.getPriorityActionCount();
+		pendingSchedules.offer(schedule);
+		mainLoop.wakeUp();
 
-			for (Runnable shutdownHook : shutdownHooks) {
-				if (shutdownHook != null) {
-					try {
-						shutdownHook.run();
-					} catch (Exception e) {
-						logger.log(Level.SEVERE, "Shutdown hook threw an exception.", e);
-					}
-				}
-			}
+		return schedule;
+	}
 
-			if (!shutdownHooks.isEmpty()) {
-				logger.log(Level.INFO, "Shutdown hooks executed.");
-			}
+	/**
+	 * Handles the received message.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway that is destination of message.
+	 * @param message
+	 *            the received message.
+	 */
+	private void handleMessageReceivedAction(GatewayHolder gatewayHolder, Message message) {
+		SubscriptionImpl[] matchingSubscriptions = getMatchingSubscriptions(gatewayHolder, message.getTopic());
+		if (matchingSubscriptions.length == 0) {
+			return;
+		}
 
-			// save state if the application started normally
-			if (eventLoopStarted) {
-				saveState();
-			}
+		// create message with topic including the source gateway (the
+		// fully-qualified topic is reused, if the topic is interned)
+		Message messageToDelivery;
+		int topicId = gatewayHolder.topics.resolve(message);
+		if (topicId != TopicRegistry.NO_ID) {
+			messageToDelivery = message.cloneWithNewTopic(topicRegistry.getTopic(topicId), topicId);
+		} else {
+			messageToDelivery = message.cloneWithNewTopic(gatewayHolder.gateway.getId() + "/" + message.getTopic());
+		}
 
-			// close all started gateways
-			if (startedGateways != null) {
-				Collections.reverse(startedGateways);
-				stopGateways(startedGateways);
-			}
+		deliverMessage(gatewayHolder.eventLoop, matchingSubscriptions, messageToDelivery);
+	}
 
-			executorService.shutdown();
+	/**
+	 * Handles a received message with an interned topic. The message is
+	 * created only if there is a matching subscription.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway that is destination of message.
+	 * @param topicId
+	 *            the identifier of the (localized) topic of the message.
+	 * @param payload
+	 *            the payload of the message.
+	 */
+	private void handleMessageReceivedAction(GatewayHolder gatewayHolder, int topicId, byte[] payload) {
+		SubscriptionImpl[] matchingSubscriptions = getMatchingSubscriptions(gatewayHolder,
+				topicRegistry.getLocalTopic(topicId));
+		if (matchingSubscriptions.length == 0) {
+			return;
 		}
 
-		logger.log(Level.INFO, "Application stopped.");
+		deliverMessage(gatewayHolder.eventLoop, matchingSubscriptions,
+				new Message(topicRegistry.getTopic(topicId), payload, topicId));
 	}
 
 	/**
-	 * Returns a list of gateways ordered in an appropriate activation order.
-	 * Data gateways are started as the last.
+	 * Handles the oldest message in the message buffer of a gateway in a
+	 * lane.
 	 * 
-	 * @return the list of gateways.
+	 * @param gatewayHolder
+	 *            the gateway that is destination of message.
+	 * @param lane
+	 *            the lane of the message buffer.
 	 */
-	private List<Gateway> constructGatewayActivationOrder() {
-		List<Gateway> result = new ArrayList<>();
-
-		// add system gateway
-		result.add(systemGateway);
+	private void handleBufferedMessageAction(GatewayHolder gatewayHolder, ActionLane lane) {
+		Message message;
+		MessageBuffer buffer = gatewayHolder.messageBuffers[lane.ordinal()];
+		synchronized (buffer) {
+			BufferedMessage bufferedMessage = buffer.messages.poll();
+			if (bufferedMessage == null) {
+				return;
+			}
 
-		// add all gateways that are not data gateways (ignore system gateway)
-		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
-			if (!(gatewayHolder.gateway instanceof DataGateway) && !(gatewayHolder.gateway instanceof SystemGateway)) {
-				result.add(gatewayHolder.gateway);
+			message = bufferedMessage.message;
+			Map<String, BufferedMessage> lastMessages = buffer.lastMessages;
+			if ((lastMessages != null) && (lastMessages.get(message.getTopic()) == bufferedMessage)) {
+				lastMessages.remove(message.getTopic());
 			}
 		}
 
-		// add data gateways
-		for (GatewayHolder gatewayHolder : gatewayHolders.values()) {
-			if (gatewayHolder.gateway instanceof DataGateway) {
-				result.add(gatewayHolder.gateway);
-			}
+		handleMessageReceivedAction(gatewayHolder, message);
+	}
+
+	/**
+	 * Returns subscriptions that match a topic using the subscriber cache of
+	 * the gateway.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway that is source of the topic.
+	 * @param topic
+	 *            the (localized) topic.
+	 * @return the array of matching subscriptions.
+	 */
+	private SubscriptionImpl[] getMatchingSubscriptions(GatewayHolder gatewayHolder, String topic) {
+		// no locking is required, since topic filter indices and subscription
+		// arrays are immutable
+		TopicCache<SubscriptionImpl[]> subscriberCache = gatewayHolder.getValidSubscriberCache();
+		SubscriptionImpl[] matchingSubscriptions = subscriberCache.get(topic);
+		if (matchingSubscriptions == null) {
+			matchingSubscriptions = findMatchingSubscriptions(gatewayHolder, topic);
+			subscriberCache.put(topic, matchingSubscriptions);
 		}
 
-		return result;
+		return matchingSubscriptions;
 	}
 
 	/**
-	 * Start registered messaging gateways and returns list of started gateways.
+	 * Delivers a message to subscriptions.
 	 * 
-	 * @return the list of started gateways in order of start.
+	 * @param eventLoop
+	 *            the event loop that delivers the message.
+	 * @param subscriptions
+	 *            the subscriptions.
+	 * @param message
+	 *            the message with fully-qualified topic.
 	 */
-	private List<Gateway> startGateways() {
-		List<Gateway> startedGateways = new ArrayList<>();
+	private void deliverMessage(EventLoop eventLoop, SubscriptionImpl[] subscriptions, Message message) {
+		final boolean watched = slowActionBudgetNanos > 0;
+		for (SubscriptionImpl subscription : subscriptions) {
+			if (watched) {
+				eventLoop.currentTopicFilter = subscription.topicFilter;
+			}
+
+			if (subscription.mailbox != null) {
+				subscription.mailbox.offer(message);
+				continue;
+			}
 
-		// load persistent bundles of all gateways
-		Map<String, Bundle> persistentBundles = null;
-		if (persistentStorage != null) {
 			try {
-				persistentBundles = persistentStorage.loadBundles();
+				subscription.messageListener.onMessage(message);
 			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Loading data from persistent storage failed.", e);
-				return startedGateways;
+				logger.log(Level.SEVERE, "Message listener threw an exception.");
+				throw e;
 			}
 		}
+	}
 
-		if (persistentBundles == null) {
-			persistentBundles = Collections.emptyMap();
-		} else {
-			persistentBundles.remove(null);
+	/**
+	 * Returns subscriptions that match a topic ordered by their handling
+	 * priority.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway that is source of the topic.
+	 * @param topic
+	 *            the (localized) topic.
+	 * @return the array of matching subscriptions.
+	 */
+	private SubscriptionImpl[] findMatchingSubscriptions(GatewayHolder gatewayHolder, String topic) {
+		// search in gateway specific and global topic filters
+		List<TopicFilter> matchingFilters = new ArrayList<>();
+		gatewayHolder.topicFilters.collectMatchingFilters(topic, matchingFilters);
+		globalTopicFilters.collectMatchingFilters(topic, matchingFilters);
+
+		if (matchingFilters.isEmpty()) {
+			return NO_SUBSCRIPTIONS;
 		}
 
-		// start gateways
-		for (Gateway gateway : constructGatewayActivationOrder()) {
-			String gatewayId = gateway.getId();
-			String gatewayPrefix = gatewayId + "/";
+		// the presorted subscriptions of a single filter can be shared
+		if (matchingFilters.size() == 1) {
+			return matchingFilters.get(0).subscriptions;
+		}
 
-			Map<String, Bundle> gatewayBundles = new HashMap<>();
-			for (Map.Entry<String, Bundle> entry : persistentBundles.entrySet()) {
-				if (entry.getKey().startsWith(gatewayPrefix)) {
-					gatewayBundles.put(entry.getKey(), entry.getValue());
+		// merge presorted subscriptions of matching filters (subscriptions
+		// with the same handling priority are ordered by filters)
+		SubscriptionImpl[][] sources = new SubscriptionImpl[matchingFilters.size()][];
+		int resultLength = 0;
+		for (int i = 0; i < sources.length; i++) {
+			sources[i] = matchingFilters.get(i).subscriptions;
+			resultLength += sources[i].length;
+		}
+
+		int[] positions = new int[sources.length];
+		SubscriptionImpl[] result = new SubscriptionImpl[resultLength];
+		for (int resultIdx = 0; resultIdx < resultLength; resultIdx++) {
+			int bestSourceIdx = -1;
+			SubscriptionImpl bestSubscription = null;
+			for (int i = 0; i < sources.length; i++) {
+				if (positions[i] < sources[i].length) {
+					SubscriptionImpl subscription = sources[i][positions[i]];
+					if ((bestSubscription == null) || (subscription.handlingPriority > bestSubscription.handlingPriority)) {
+						bestSourceIdx = i;
+						bestSubscription = subscription;
+					}
 				}
 			}
 
-			try {
-				logger.log(Level.INFO, "Gateway \"" + gatewayId + "\" is starting.");
-				gateway.start(gatewayBundles);
-				startedGateways.add(gateway);
-				logger.log(Level.INFO, "Gateway \"" + gatewayId + "\" started.");
-			} catch (Throwable e) {
-				logger.log(Level.SEVERE, "Unable to start the gateway \"" + gatewayId + "\" due to thrown exception.",
-						e);
-			}
+			result[resultIdx] = bestSubscription;
+			positions[bestSourceIdx]++;
 		}
 
-		return startedGateways;
+		return result;
 	}
 
 	/**
-	 * Executes the main application code (serialization and event loop).
+	 * Interns a topic of a gateway to a topic identifier. The method is called
+	 * from gateways.
+	 * 
+	 * @param gatewayId
+	 *            the identifier of gateway.
+	 * @param topic
+	 *            the (localized) topic.
+	 * @param ignoreCapacity
+	 *            true, if the topic is interned even if the maximal number of
+	 *            interned topics is reached, false otherwise.
+	 * @return the identifier of the topic, or a negative value, if the topic
+	 *         is not interned.
 	 */
-	private void runEventLoop() {
-		// execution loop
-		long now = MonotonicClock.currentTimeMillis();
-		long processedActionCount = 0;
+	int registerTopic(String gatewayId, String topic, boolean ignoreCapacity) {
+		GatewayHolder gatewayHolder = findGatewayHolder(gatewayId);
 
-		final boolean autosaveEnabled = (persistentStorage != null) && (autosavePeriodInSeconds > 0);
-		final long autosaveMillisPeriod = autosaveEnabled ? autosavePeriodInSeconds * 1_000 : 0;
-		long lastSave = now;
+		if (gatewayHolder == null) {
+			return TopicRegistry.NO_ID;
+		}
 
-		while (!exitRequested) {
-			Action action = null;
-
-			// retrieve an action (work item)
-			synchronized (queueLock) {
-				// handle scheduled actions first
-				if (!scheduledActionQueue.isEmpty()) {
-					now = MonotonicClock.currentTimeMillis();
-					ScheduledAction queueHeadAction = scheduledActionQueue.peek();
-					if ((now > queueHeadAction.executionTime)
-							&& (queueHeadAction.precedingActionCount <= processedActionCount)) {
-						ScheduledAction scheduledAction = scheduledActionQueue.poll();
-						Schedule schedule = scheduledAction.schedule;
-						if (!schedule.cancelled) {
-							action = scheduledAction.action;
-
-							// reschedule if the schedule defines repetitions
-							if (schedule.repetitionMode == Schedule.FIXED_DELAY) {
-								scheduledActionQueue.add(
-										new ScheduledAction(now + schedule.period, action, schedule, totalActionCount));
-							} else if (schedule.repetitionMode == Schedule.FIXED_RATE) {
-								long nextExecutionTime = scheduledAction.executionTime + schedule.period;
-								if (nextExecutionTime <= now) {
-									nextExecutionTime = now + schedule.period;
-								}
-								scheduledActionQueue.add(
-										new ScheduledAction(nextExecutionTime, action, schedule, totalActionCount));
-							}
-						}
-					}
-				}
+		return gatewayHolder.topics.register(topic, ignoreCapacity);
+	}
 
-				// if there is still no retrieved action, inspect the queue with
-				// unscheduled actions
-				if (action == null) {
-					action = actionQueue.poll();
-
-					// wait for new action (if necessary)
-					if (action == null) {
-						try {
-							if (scheduledActionQueue.isEmpty()) {
-								queueLock.wait();
-							} else {
-								long millisDelay = scheduledActionQueue.peek().executionTime - now;
-								if (millisDelay > 0) {
-									TimeUnit.MILLISECONDS.timedWait(queueLock, millisDelay);
-								}
-							}
-						} catch (InterruptedException ignore) {
-							// nothing to do
-						}
-					} else {
-						processedActionCount++;
-					}
-				}
-			}
+	/**
+	 * Pushes the received message for processing. The method is called from
+	 * gateways.
+	 * 
+	 * @param gatewayId
+	 *            the identifier of gateway.
+	 * @param message
+	 *            the received message.
+	 * @param lane
+	 *            the lane of the message, or null, if the default lane of the
+	 *            gateway is used.
+	 */
+	void pushReceivedMessage(String gatewayId, Message message, ActionLane lane) {
+		GatewayHolder gatewayHolder = findGatewayHolder(gatewayId);
 
-			if (action == null) {
-				continue;
-			}
+		if (gatewayHolder == null) {
+			return;
+		}
 
-			// handle action
-			try {
-				action.execute();
-			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Execution of action failed.", e);
-			}
+		if (lane == null) {
+			lane = gatewayHolder.lane;
+		}
 
-			// save state (if necessary)
-			if (autosaveEnabled) {
-				now = MonotonicClock.currentTimeMillis();
-				if (now - lastSave > autosaveMillisPeriod) {
-					saveState();
-					lastSave = now;
-				}
-			}
+		if (gatewayHolder.messageBuffers != null) {
+			bufferReceivedMessage(gatewayHolder, message, lane);
+			return;
+		}
+
+		if (admitReceivedMessage(gatewayHolder, lane)) {
+			EventSlot slot = gatewayHolder.eventLoop.claimSlot(EventKind.RECEIVED_MESSAGE, lane);
+			slot.gatewayHolder = gatewayHolder;
+			slot.message = message;
+			enqueueAction(slot);
 		}
 	}
 
 	/**
-	 * Handles a published message for system.
+	 * Pushes the received message with an interned topic for processing. The
+	 * method is called from gateways.
 	 * 
-	 * @param message
-	 *            the message.
+	 * @param gatewayId
+	 *            the identifier of gateway.
+	 * @param topicId
+	 *            the identifier of the (localized) topic of the message.
+	 * @param payload
+	 *            the payload of the message.
+	 * @param lane
+	 *            the lane of the message, or null, if the default lane of the
+	 *            gateway is used.
 	 */
-	void handlePublishedSystemMessage(Message message) {
-		String topic = message.getTopic().toLowerCase();
+	void pushReceivedMessage(String gatewayId, int topicId, byte[] payload, ActionLane lane) {
+		GatewayHolder gatewayHolder = findGatewayHolder(gatewayId);
 
-		// handle request to exit
-		if ("exit".equals(topic)) {
-			requestApplicationExit();
+		if (gatewayHolder == null) {
 			return;
 		}
 
-		// handle request to save state
-		if ("save".equals(topic)) {
-			saveState();
+		if (!gatewayHolder.topics.contains(topicId)) {
+			throw new IllegalArgumentException("Unknown topic identifier.");
+		}
+
+		if (lane == null) {
+			lane = gatewayHolder.lane;
+		}
+
+		if (gatewayHolder.messageBuffers != null) {
+			bufferReceivedMessage(gatewayHolder, new Message(topicRegistry.getLocalTopic(topicId), payload, topicId),
+					lane);
 			return;
 		}
+
+		if (admitReceivedMessage(gatewayHolder, lane)) {
+			EventSlot slot = gatewayHolder.eventLoop.claimSlot(EventKind.RECEIVED_INTERNED_MESSAGE, lane);
+			slot.gatewayHolder = gatewayHolder;
+			slot.topicId = topicId;
+			slot.payload = payload;
+			enqueueAction(slot);
+		}
 	}
 
 	/**
-	 * Publishes a message generated by a message factory.
+	 * Decides whether a received message of a gateway without message buffer
+	 * is put into the action queue. If the action queue is full, the overload
+	 * policy of the gateway is applied.
 	 * 
-	 * @param messageFactory
-	 *            the message factory that generates a message to be published.
+	 * @param gatewayHolder
+	 *            the gateway that received the message.
+	 * @param lane
+	 *            the lane of the message, messages in the system lane are
+	 *            always admitted.
+	 * @return true, if the message should be put into the action queue, false,
+	 *         if the message is dropped.
 	 */
-	private void publishFactoryMessage(MessageFactory messageFactory) {
-		Message message = null;
-		try {
-			message = messageFactory.createMessage();
-		} catch (Exception e) {
-			logger.log(Level.SEVERE, "Creation of message by factory failed.", e);
+	private boolean admitReceivedMessage(GatewayHolder gatewayHolder, ActionLane lane) {
+		int capacity = actionQueueCapacity;
+		EventLoop eventLoop = gatewayHolder.eventLoop;
+		if ((capacity <= 0) || (lane == ActionLane.SYSTEM) || (eventLoop.getPendingActionCount() < capacity)) {
+			return true;
 		}
 
-		if (message == null) {
-			return;
+		if (gatewayHolder.overloadPolicy == OverloadPolicy.DROP_NEWEST) {
+			gatewayHolder.droppedMessageCount.incrementAndGet();
+			return false;
 		}
 
-		Action action = null;
-		try {
-			action = createPublishAction(message);
-		} catch (Exception e) {
-			logger.log(Level.SEVERE, "Message created by message factory cannot be published.", e);
+		// threads of event loops cannot be blocked, since they consume actions
+		if (isInApplicationThread()) {
+			return true;
 		}
 
-		if (action != null) {
-			action.execute();
-		}
+		// the blocked thread is woken up by the event loop when an action is
+		// taken from the queue
+		gatewayHolder.blockedMessageCount.incrementAndGet();
+		eventLoop.awaitCapacity(capacity);
+		return true;
 	}
 
 	/**
-	 * Requests the application to exit.
+	 * Puts a received message into the message buffer of a gateway in a lane
+	 * and submits an action that delivers a buffered message of the lane. If
+	 * the action queue is full, the overload policy of the gateway is applied
+	 * to pending messages of the lane.
+	 * 
+	 * @param gatewayHolder
+	 *            the gateway that received the message.
+	 * @param message
+	 *            the received message.
+	 * @param lane
+	 *            the lane of the message.
 	 */
-	private void requestApplicationExit() {
-		exitRequested = true;
-		synchronized (queueLock) {
-			queueLock.notifyAll();
+	private void bufferReceivedMessage(GatewayHolder gatewayHolder, Message message, ActionLane lane) {
+		MessageBuffer buffer = gatewayHolder.messageBuffers[lane.ordinal()];
+		boolean overloaded = (lane != ActionLane.SYSTEM)
+				&& (gatewayHolder.eventLoop.getPendingActionCount() >= actionQueueCapacity);
+		synchronized (buffer) {
+			if (overloaded) {
+				if (buffer.lastMessages != null) {
+					BufferedMessage pendingMessage = buffer.lastMessages.get(message.getTopic());
+					if (pendingMessage != null) {
+						pendingMessage.message = message;
+						gatewayHolder.conflatedMessageCount.incrementAndGet();
+						return;
+					}
+				} else {
+					// the oldest message is replaced, the number of pending
+					// delivery actions is not changed
+					BufferedMessage oldestMessage = buffer.messages.poll();
+					if (oldestMessage != null) {
+						gatewayHolder.droppedMessageCount.incrementAndGet();
+						oldestMessage.message = message;
+						buffer.messages.add(oldestMessage);
+						return;
+					}
+				}
+
+				// the message is admitted, if there is no pending message of
+				// the gateway in the lane to be replaced (the queue is full
+				// due to other actions) or no pending message with the same
+				// topic to be conflated, hence the queue can exceed its
+				// capacity by the number of such gateways or distinct topics
+			}
+
+			BufferedMessage bufferedMessage = new BufferedMessage(message);
+			buffer.messages.add(bufferedMessage);
+			if (buffer.lastMessages != null) {
+				buffer.lastMessages.put(message.getTopic(), bufferedMessage);
+			}
 		}
+
+		EventSlot slot = gatewayHolder.eventLoop.claimSlot(EventKind.BUFFERED_MESSAGE, lane);
+		slot.gatewayHolder = gatewayHolder;
+		enqueueAction(slot);
 	}
 
 	/**
-	 * Silently stop gateways.
+	 * Pushes a request for synchronizing a data item to the handling thread.
+	 *
+	 * @param dataItem
+	 *            the data item.
+	 */
+	void pushSynchronizationRequest(DataItem<?> dataItem) {
+		// the control lane is used, so that code scheduled after the value
+		// was invalidated observes the synchronized value
+		EventSlot slot = mainLoop.claimSlot(EventKind.SYNCHRONIZATION_REQUEST, ActionLane.CONTROL);
+		slot.dataItem = dataItem;
+		enqueueAction(slot);
+	}
+
+	/**
+	 * Pushes a request to change value of a data item to a new value.
 	 * 
-	 * @param gatewaysToStop
-	 *            the list of gateways that should be stopped.
+	 * @param dataItem
+	 *            the data item.
+	 * @param newValue
+	 *            the desired value.
 	 */
-	private void stopGateways(List<Gateway> gatewaysToStop) {
-		for (Gateway gateway : gatewaysToStop) {
-			try {
-				gateway.stop();
-				logger.log(Level.INFO, "Gateway \"" + gateway.getId() + "\" stopped.");
-			} catch (Exception ignore) {
-				logger.log(Level.SEVERE, "Unable to stop the gateway \"" + gateway.getId() + "\".", ignore);
-			}
-		}
+	void pushChangeRequest(DataItem<?> dataItem, Object newValue) {
+		EventSlot slot = mainLoop.claimSlot(EventKind.CHANGE_REQUEST, ActionLane.CONTROL);
+		slot.dataItem = dataItem;
+		slot.value = newValue;
+		enqueueAction(slot);
 	}
 
 	/**
-	 * Adds a new action to the queue of actions to be performed.
+	 * Pushes a request to change value of a data item to the latest value
+	 * requested by coalesced change requests.
 	 * 
-	 * @param action
-	 *            the action.
+	 * @param dataItem
+	 *            the data item.
 	 */
-	private void enqueueAction(Action action) {
-		if (action == null) {
-			return;
+	void pushCoalescedChangeRequest(DataItem<?> dataItem) {
+		EventSlot slot = mainLoop.claimSlot(EventKind.COALESCED_CHANGE_REQUEST, ActionLane.CONTROL);
+		slot.dataItem = dataItem;
+		enqueueAction(slot);
+	}
+
+	/**
+	 * Returns whether the method is executed in the main thread of this
+	 * application instance or in a thread of another event loop of the
+	 * application.
+	 * 
+	 * @see Application#setEventLoopCount(int)
+	 * @return true, if the method is executed in a thread of an event loop of
+	 *         the application, false otherwise.
+	 */
+	public boolean isInApplicationThread() {
+		Thread currentThread = Thread.currentThread();
+		if (currentThread == applicationThread) {
+			return true;
 		}
 
-		synchronized (queueLock) {
-			actionQueue.offer(action);
-			totalActionCount++;
-			queueLock.notifyAll();
+		for (EventLoop eventLoop : eventLoops) {
+			if (currentThread == eventLoop.thread) {
+				return true;
+			}
 		}
+
+		return false;
 	}
 
 	/**
-	 * Adds a new action the should be performed in a repeatable manner with
-	 * respect to given schedule.
+	 * Returns the executor service of the application.
 	 * 
-	 * @param action
-	 *            the action to be scheduled.
-	 * @param schedule
-	 *            the schedule of action.
-	 * @return the {@link Cancellable} instance that allows cancellation of the
-	 *         action.
+	 * @return the executor service.
 	 */
-	private Cancellable enqueueScheduledAction(Action action, Schedule schedule) {
-		long firstExecutionTime = MonotonicClock.currentTimeMillis() + schedule.initialDelay;
-		synchronized (queueLock) {
-			scheduledActionQueue.offer(new ScheduledAction(firstExecutionTime, action, schedule, totalActionCount));
-			queueLock.notifyAll();
+	public ExecutorService getExecutorService() {
+		ExecutorService result = executorService;
+		if (result != null) {
+			return result;
 		}
 
-		return schedule;
+		synchronized (lock) {
+			if (executorService == null) {
+				executorService = createExecutorService();
+			}
+
+			return executorService;
+		}
 	}
 
 	/**
-	 * Cancels all scheduled action with given schedule instance.
+	 * Sets the implementation of the executor service of the application. The
+	 * default implementation is {@link ExecutorMode#CACHED}. The executor
+	 * service is created when it is requested for the first time, later
+	 * changes are not allowed.
 	 * 
-	 * @param schedule
-	 *            the schedule.
-	 */
-	private void cancelActionWithSchedule(Schedule schedule) {
-		synchronized (queueLock) {
-			Iterator<ScheduledAction> it = scheduledActionQueue.iterator();
-			while (it.hasNext()) {
-				ScheduledAction action = it.next();
-				if (action.schedule == schedule) {
-					it.remove();
-				}
-			}
+	 * @param mode
+	 *            the implementation of the executor service.
+	 */
+	public void setExecutorMode(ExecutorMode mode) {
+		if (mode == null) {
+			throw new NullPointerException("Executor mode cannot be null.");
+		}
+
+		synchronized (lock) {
+			checkExecutorServiceNotCreated();
+			this.executorMode = mode;
 		}
 	}
 
 	/**
-	 * Handles the received message.
+	 * Returns the implementation of the executor service of the application.
 	 * 
-	 * @param gatewayHolder
-	 *            the gateway that is destination of message.
-	 * @param message
-	 *            the received message.
+	 * @see Application#setExecutorMode(ExecutorMode)
+	 * @return the implementation of the executor service.
 	 */
-	private void handleMessageReceivedAction(GatewayHolder gatewayHolder, Message message) {
-		// find all matching subscriptions
-		List<SubscriptionImpl> matchingSubscriptions = new ArrayList<>();
-		String topic = message.getTopic();
-		String[] parsedTopic = parseTopicHierarchy(topic);
+	public ExecutorMode getExecutorMode() {
 		synchronized (lock) {
-			// find simple topic filter for message topic
-			TopicFilter matchingSimpleFilter = gatewayHolder.simpleTopicFilters.get(topic);
-			if (matchingSimpleFilter != null) {
-				matchingSubscriptions.addAll(matchingSimpleFilter.subscriptions);
-			}
-
-			// search in gateway specific subscriptions with wild-cards
-			for (TopicFilter topicFilter : gatewayHolder.wildcardTopicFilters.values()) {
-				if (topicFilter.matchTopic(parsedTopic)) {
-					matchingSubscriptions.addAll(topicFilter.subscriptions);
-				}
-			}
+			return executorMode;
+		}
+	}
 
-			// find simple topic filter for message topic in global topic
-			// filters
-			matchingSimpleFilter = simpleGlobalTopicFilters.get(topic);
-			if (matchingSimpleFilter != null) {
-				matchingSubscriptions.addAll(matchingSimpleFilter.subscriptions);
-			}
+	/**
+	 * Sets the maximal number of threads of the work-stealing executor
+	 * service. By default, the number of threads is equal to the number of
+	 * available processors.
+	 * 
+	 * @see ExecutorMode#WORK_STEALING
+	 * @param parallelism
+	 *            the maximal number of threads (at least 1).
+	 */
+	public void setExecutorParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("The parallelism must be positive.");
+		}
 
-			// search in global topic filters with wild-cards
-			for (TopicFilter topicFilter : wildcardGlobalTopicFilters.values()) {
-				if (topicFilter.matchTopic(parsedTopic)) {
-					matchingSubscriptions.addAll(topicFilter.subscriptions);
-				}
-			}
+		synchronized (lock) {
+			checkExecutorServiceNotCreated();
+			this.executorParallelism = parallelism;
 		}
+	}
 
-		if (matchingSubscriptions.isEmpty()) {
-			return;
+	/**
+	 * Returns the maximal number of threads of the work-stealing executor
+	 * service.
+	 * 
+	 * @see Application#setExecutorParallelism(int)
+	 * @return the maximal number of threads.
+	 */
+	public int getExecutorParallelism() {
+		synchronized (lock) {
+			return executorParallelism;
 		}
+	}
 
-		// if there are at least two subscriptions with different handling
-		// priorities, sort them according to handling priority
-		if (matchingSubscriptions.size() >= 2) {
-			boolean sortingRequired = false;
+	/**
+	 * Sets a custom executor service of the application. The executor service
+	 * is shut down when the application stops.
+	 * 
+	 * @param executorService
+	 *            the executor service.
+	 */
+	public void setExecutorService(ExecutorService executorService) {
+		if (executorService == null) {
+			throw new NullPointerException("Executor service cannot be null.");
+		}
 
-			int handlingPriority = matchingSubscriptions.get(0).handlingPriority;
-			for (SubscriptionImpl subscription : matchingSubscriptions) {
-				if (subscription.handlingPriority != handlingPriority) {
-					sortingRequired = true;
-					break;
-				}
-			}
+		synchronized (lock) {
+			checkExecutorServiceNotCreated();
+			this.executorService = executorService;
+		}
+	}
 
-			if (sortingRequired) {
-				Collections.sort(matchingSubscriptions);
-			}
+	/**
+	 * Returns the number of tasks waiting for execution in the executor
+	 * service of the application.
+	 * 
+	 * @return the number of queued tasks, or 0, if the executor service does
+	 *         not provide the number.
+	 */
+	public long getExecutorQueuedTaskCount() {
+		ExecutorService service = executorService;
+		if (service instanceof ForkJoinPool) {
+			ForkJoinPool pool = (ForkJoinPool) service;
+			return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+		} else if (service instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) service).getQueue().size();
 		}
 
-		// create message with topic including the source gateway
-		Message messageToDelivery = message.cloneWithNewTopic(gatewayHolder.gateway.getId() + "/" + message.getTopic());
+		return 0;
+	}
 
-		// send message to all subscriptions
-		for (SubscriptionImpl subscription : matchingSubscriptions) {
-			try {
-				subscription.messageListener.onMessage(messageToDelivery);
-			} catch (Exception e) {
-				logger.log(Level.SEVERE, "Message listener threw an exception.");
-				throw e;
-			}
+	/**
+	 * Returns the number of threads of the executor service of the application
+	 * that are executing tasks.
+	 * 
+	 * @return the number of active threads, or 0, if the executor service does
+	 *         not provide the number.
+	 */
+	public int getExecutorActiveThreadCount() {
+		ExecutorService service = executorService;
+		if (service instanceof ForkJoinPool) {
+			return ((ForkJoinPool) service).getActiveThreadCount();
+		} else if (service instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) service).getActiveCount();
 		}
+
+		return 0;
 	}
 
 	/**
-	 * Pushes the received message for processing. The method is called from
-	 * gateways.
+	 * Returns the number of threads of the executor service of the
+	 * application.
 	 * 
-	 * @param gatewayId
-	 *            the identifier of gateway.
-	 * @param message
-	 *            the received message.
+	 * @return the number of threads, or 0, if the executor service does not
+	 *         provide the number.
 	 */
-	void pushReceivedMessage(final String gatewayId, final Message message) {
-		synchronized (lock) {
-			final GatewayHolder gatewayHolder = gatewayHolders.get(gatewayId);
-			if (gatewayHolder != null) {
-				enqueueAction(new Action() {
-					@Override
-					void execute() {
-						handleMessageReceivedAction(gatewayHolder, message);
-					}
-				});
-			}
+	public int getExecutorPoolSize() {
+		ExecutorService service = executorService;
+		if (service instanceof ForkJoinPool) {
+			return ((ForkJoinPool) service).getPoolSize();
+		} else if (service instanceof ThreadPoolExecutor) {
+			return ((ThreadPoolExecutor) service).getPoolSize();
 		}
+
+		return 0;
 	}
 
 	/**
-	 * Pushes a request for synchronizing a data item to the handling thread.
-	 *
-	 * @param dataItem
-	 *            the data item.
+	 * Returns the number of tasks stolen by threads of the work-stealing
+	 * executor service from queues of other threads.
+	 * 
+	 * @return the number of stolen tasks, or 0, if the executor service is not
+	 *         a work-stealing executor service.
 	 */
-	void pushSynchronizationRequest(final DataItem<?> dataItem) {
-		enqueueAction(new Action() {
-			@Override
-			void execute() {
-				dataItem.synchronizeValue();
-			}
-		});
+	public long getExecutorStealCount() {
+		ExecutorService service = executorService;
+		if (service instanceof ForkJoinPool) {
+			return ((ForkJoinPool) service).getStealCount();
+		}
+
+		return 0;
 	}
 
 	/**
-	 * Pushes a request to change value of a data item to a new value.
-	 * 
-	 * @param dataItem
-	 *            the data item.
-	 * @param newValue
-	 *            the desired value.
+	 * Throws an exception if the executor service has been already created.
+	 * The method invocation is synchronized by the application lock.
 	 */
-	void pushChangeRequest(final DataItem<?> dataItem, final Object newValue) {
-		enqueueAction(new Action() {
-			public void execute() {
-				dataItem.requestValueChange(newValue);
-			}
-		});
+	private void checkExecutorServiceNotCreated() {
+		if (launched) {
+			throw new IllegalStateException("It is not possible to change executor service of launched application.");
+		}
+
+		if (executorService != null) {
+			throw new IllegalStateException("The executor service has been already created.");
+		}
 	}
 
 	/**
-	 * Returns whether the method is executed in the main thread of this
-	 * application instance.
+	 * Creates the executor service with respect to the executor mode. The
+	 * method invocation is synchronized by the application lock.
 	 * 
-	 * @return true, if the method is executed in the main thread of the
-	 *         application, false otherwise.
+	 * @return the executor service.
 	 */
-	public boolean isInApplicationThread() {
-		return Thread.currentThread() == applicationThread;
+	private ExecutorService createExecutorService() {
+		switch (executorMode) {
+		case VIRTUAL_THREADS:
+			// the factory method is available since Java 21
+			try {
+				Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) factoryMethod.invoke(null);
+			} catch (Exception e) {
+				logger.log(Level.WARNING,
+						"Virtual threads are not supported by the runtime, work-stealing executor is used.");
+			}
+			return createWorkStealingExecutorService();
+		case WORK_STEALING:
+			return createWorkStealingExecutorService();
+		default:
+			return Executors.newCachedThreadPool();
+		}
 	}
 
 	/**
-	 * Returns the executor service of the application.
+	 * Creates work-stealing executor service with bounded number of threads.
 	 * 
 	 * @return the executor service.
 	 */
-	public ExecutorService getExecutorService() {
-		return executorService;
+	private ExecutorService createWorkStealingExecutorService() {
+		final AtomicInteger threadCounter = new AtomicInteger();
+		ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+				ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+				};
+				thread.setName(WORKER_THREAD_NAME + threadCounter.incrementAndGet());
+				return thread;
+			}
+		};
+
+		Thread.UncaughtExceptionHandler exceptionHandler = new Thread.UncaughtExceptionHandler() {
+			@Override
+			public void uncaughtException(Thread thread, Throwable e) {
+				logger.log(Level.SEVERE, "Task of executor service failed.", e);
+			}
+		};
+
+		return new ForkJoinPool(executorParallelism, threadFactory, exceptionHandler, true);
 	}
 
 	/**
@@ -2100,31 +5877,25 @@ public final class Application {
 			return false;
 		}
 
-		String[] parsedTopicFilter = parseTopicHierarchy(topicFilter);
-		int mlWildcardCounter = 0;
-		for (String part : parsedTopicFilter) {
-			// [MQTT-4.7.1-3]
-			if (part.indexOf('+') >= 0) {
-				if (!SINGLE_LEVEL_WILDCARD.equals(part)) {
-					return false;
-				}
-			}
-			// [MQTT-4.7.1-2]
-			if (part.indexOf('#') >= 0) {
-				if (!MULTI_LEVEL_WILDCARD.equals(part)) {
-					return false;
-				}
+		int levelStart = 0;
+		while (levelStart <= topicFilter.length()) {
+			int levelEnd = TopicLevels.levelEnd(topicFilter, levelStart);
+			for (int i = levelStart; i < levelEnd; i++) {
+				char c = topicFilter.charAt(i);
+				// [MQTT-4.7.1-2], [MQTT-4.7.1-3]
+				if ((c == '+') || (c == '#')) {
+					if (levelEnd - levelStart != 1) {
+						return false;
+					}
 
-				mlWildcardCounter++;
+					// multi-level wild-card must be the last level
+					if ((c == '#') && (levelEnd != topicFilter.length())) {
+						return false;
+					}
+				}
 			}
-		}
-
-		if (mlWildcardCounter >= 2) {
-			return false;
-		}
 
-		if ((mlWildcardCounter == 1) && !MULTI_LEVEL_WILDCARD.equals(parsedTopicFilter[parsedTopicFilter.length - 1])) {
-			return false;
+			levelStart = levelEnd + 1;
 		}
 
 		return true;
@@ -2192,18 +5963,6 @@ public final class Application {
 		}
 	}
 
-	/**
-	 * Returns whether the topic filter is simple, i.e., it does not contain
-	 * wild-cards.
-	 * 
-	 * @param topicFilter
-	 *            the topic filter.
-	 * @return true, if the topic filter is simple, false otherwise.
-	 */
-	private static boolean detectSimpleTopicFilter(String topicFilter) {
-		return false;
-	}
-
 	/**
 	 * Parses topic name or topic filter to topic hierarchy.
 	 * 
@@ -2216,15 +5975,15 @@ public final class Application {
 			return null;
 		}
 
-		List<String> parts = new ArrayList<>();
-		int readIdx = 0, slashIdx = 0;
-		while ((slashIdx = topic.indexOf('/', readIdx)) >= 0) {
-			parts.add(topic.substring(readIdx, slashIdx));
-			readIdx = slashIdx + 1;
+		String[] result = new String[TopicLevels.countLevels(topic)];
+		int levelStart = 0;
+		for (int i = 0; i < result.length; i++) {
+			int levelEnd = TopicLevels.levelEnd(topic, levelStart);
+			result[i] = topic.substring(levelStart, levelEnd);
+			levelStart = levelEnd + 1;
 		}
-		parts.add(topic.substring(readIdx));
 
-		return parts.toArray(new String[parts.size()]);
+		return result;
 	}
 
 	/**
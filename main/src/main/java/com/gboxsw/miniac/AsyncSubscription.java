@@ -0,0 +1,42 @@
+package com.gboxsw.miniac;
+
+/**
+ * Represents a subscription whose messages are delivered asynchronously. Each
+ * asynchronous subscription has a bounded mailbox of pending messages that is
+ * drained by a task of the executor service of the application, so that
+ * messages are delivered in the order of their arrival, while the message
+ * listener does not block event loops of the application.
+ *
+ * @see Application#subscribeAsync(String, MessageListener, int,
+ *      OverloadPolicy)
+ */
+public interface AsyncSubscription extends Subscription {
+
+	/**
+	 * Returns the maximal number of pending messages in the mailbox.
+	 * 
+	 * @return the capacity of the mailbox.
+	 */
+	public int getCapacity();
+
+	/**
+	 * Returns the number of pending messages in the mailbox.
+	 * 
+	 * @return the number of pending messages.
+	 */
+	public int getBacklog();
+
+	/**
+	 * Returns the number of messages delivered to the message listener.
+	 * 
+	 * @return the number of delivered messages.
+	 */
+	public long getDeliveredMessageCount();
+
+	/**
+	 * Returns the number of messages dropped due to overflow of the mailbox.
+	 * 
+	 * @return the number of dropped messages.
+	 */
+	public long getDroppedMessageCount();
+}
@@ -30,9 +30,9 @@ public final class DataGateway extends Gateway {
 		private final DataItem<?> dataItem;
 
 		/**
-		 * Parsed identifier of the data item.
+		 * The identifier of the interned topic of the data item.
 		 */
-		private final String[] parsedId;
+		private final int topicId;
 
 		/**
 		 * The number of active subscriptions.
@@ -43,10 +43,82 @@ public final class DataGateway extends Gateway {
 		 * Constructs the record of a data item.
 		 * 
 		 * @param dataItem
+		 *            the data item.
+		 * @param topicId
+		 *            the identifier of the interned topic of the data item.
 		 */
-		private DataItemHolder(String id, DataItem<?> dataItem) {
+		private DataItemHolder(DataItem<?> dataItem, int topicId) {
 			this.dataItem = dataItem;
-			this.parsedId = Application.parseTopicHierarchy(id);
+			this.topicId = topicId;
+		}
+	}
+
+	/**
+	 * Node of the tree of data items organized by levels of their identifiers.
+	 */
+	private static final class DataItemNode {
+		/**
+		 * Child nodes indexed by the next level of identifier.
+		 */
+		private final Map<String, DataItemNode> children = new HashMap<>();
+
+		/**
+		 * The data item whose identifier ends in this node, or null, if there
+		 * is no such data item.
+		 */
+		private DataItemHolder holder;
+
+		/**
+		 * Collects the data items in the subtree rooted in this node.
+		 * 
+		 * @param result
+		 *            the list where the data items are collected.
+		 */
+		private void collectSubtree(List<DataItemHolder> result) {
+			if (holder != null) {
+				result.add(holder);
+			}
+
+			for (DataItemNode child : children.values()) {
+				child.collectSubtree(result);
+			}
+		}
+
+		/**
+		 * Collects the data items whose identifiers match the levels of a
+		 * topic filter starting at given level.
+		 * 
+		 * @param filter
+		 *            the topic filter.
+		 * @param levelIdx
+		 *            the index of level of the topic filter that is matched
+		 *            against children of this node.
+		 * @param result
+		 *            the list where the data items are collected.
+		 */
+		private void collectMatching(TopicFilter filter, int levelIdx, List<DataItemHolder> result) {
+			String[] levels = filter.getLevels();
+			if (levelIdx == levels.length) {
+				if (filter.endsWithMultiLevelWildcard()) {
+					collectSubtree(result);
+				} else if (holder != null) {
+					result.add(holder);
+				}
+
+				return;
+			}
+
+			String level = levels[levelIdx];
+			if (level == Application.SINGLE_LEVEL_WILDCARD) {
+				for (DataItemNode child : children.values()) {
+					child.collectMatching(filter, levelIdx + 1, result);
+				}
+			} else {
+				DataItemNode child = children.get(level);
+				if (child != null) {
+					child.collectMatching(filter, levelIdx + 1, result);
+				}
+			}
 		}
 	}
 
@@ -56,9 +128,16 @@ public final class DataGateway extends Gateway {
 	private final Map<String, DataItemHolder> dataItemHolders = new HashMap<>();
 
 	/**
-	 * Data items with subscription.
+	 * Immutable lookup table of data item holders created when the
+	 * application is launched, or null, if the application has not been
+	 * launched yet.
 	 */
-	private final Set<String> subscribedDataItems = new HashSet<>();
+	private volatile FrozenLookup<DataItemHolder> frozenDataItemHolders;
+
+	/**
+	 * Root of the tree of data items organized by levels of their identifiers.
+	 */
+	private final DataItemNode dataItemTree = new DataItemNode();
 
 	/**
 	 * Set of active (subscribed) topic filters.
@@ -87,19 +166,61 @@ public final class DataGateway extends Gateway {
 		}
 
 		dataItem.attachToGateway(getId() + "/" + id, id, this);
-		dataItemHolders.put(id, new DataItemHolder(id, dataItem));
+		DataItemHolder holder = new DataItemHolder(dataItem, registerTopic(id));
+		dataItemHolders.put(id, holder);
+
+		DataItemNode node = dataItemTree;
+		for (String level : Application.parseTopicHierarchy(id)) {
+			DataItemNode child = node.children.get(level);
+			if (child == null) {
+				child = new DataItemNode();
+				node.children.put(level, child);
+			}
+
+			node = child;
+		}
+
+		node.holder = holder;
 	}
 
 	/**
-	 * Returns data item. The method invocation is synchronized by the
-	 * application lock.
+	 * Freezes the collection of data items. The method invocation is
+	 * synchronized by the application lock and the method is invoked when the
+	 * application is launched.
+	 */
+	void freeze() {
+		frozenDataItemHolders = new FrozenLookup<>(dataItemHolders);
+	}
+
+	/**
+	 * Returns data item. Before the application is launched, the method
+	 * invocation must be synchronized by the application lock. After the
+	 * application is launched, the method can be invoked by any thread.
 	 * 
 	 * @param id
 	 *            the identifier of the data item.
-	 * @return the data item.
+	 * @return the data item, or null, if such a data item does not exist.
 	 */
 	DataItem<?> getDataItem(String id) {
-		return dataItemHolders.get(id).dataItem;
+		DataItemHolder holder = findDataItemHolder(id);
+		return (holder != null) ? holder.dataItem : null;
+	}
+
+	/**
+	 * Returns the holder of a data item.
+	 * 
+	 * @param id
+	 *            the identifier of the data item.
+	 * @return the holder of the data item, or null, if such a data item does
+	 *         not exist.
+	 */
+	private DataItemHolder findDataItemHolder(String id) {
+		FrozenLookup<DataItemHolder> frozenHolders = frozenDataItemHolders;
+		if (frozenHolders != null) {
+			return frozenHolders.get(id);
+		}
+
+		return dataItemHolders.get(id);
 	}
 
 	/**
@@ -110,8 +231,9 @@ public final class DataGateway extends Gateway {
 	 *            the identifier (within the gateway) of the changed data item.
 	 */
 	void notifyValueChanged(String id) {
-		if ((activatingDataItem != null) || subscribedDataItems.contains(id)) {
-			handleReceivedMessage(new Message(id));
+		DataItemHolder holder = findDataItemHolder(id);
+		if ((activatingDataItem != null) || (holder.subscriptionCount > 0)) {
+			handleReceivedMessage(holder.topicId, null);
 		}
 	}
 
@@ -125,8 +247,7 @@ public final class DataGateway extends Gateway {
 	 *         {@link DataItem#onActivate()}, false otherwise.
 	 */
 	boolean isInsideActivationCodeOfDataItem(DataItem<?> dataItem) {
-		return (getApplication() != null) && (getApplication().isInApplicationThread())
-				&& (activatingDataItem == dataItem);
+		return isInEventLoop() && (activatingDataItem == dataItem);
 	}
 
 	@Override
@@ -158,10 +279,8 @@ public final class DataGateway extends Gateway {
 			return;
 		}
 
-		Set<String> matchedDataItems = getMatchingDataItems(topicFilter);
-		subscribedDataItems.addAll(matchedDataItems);
-		for (String dataItemId : matchedDataItems) {
-			dataItemHolders.get(dataItemId).subscriptionCount++;
+		for (DataItemHolder holder : getMatchingDataItems(topicFilter)) {
+			holder.subscriptionCount++;
 		}
 	}
 
@@ -174,13 +293,8 @@ public final class DataGateway extends Gateway {
 			return;
 		}
 
-		Set<String> matchedDataItems = getMatchingDataItems(topicFilter);
-		for (String dataItemId : matchedDataItems) {
-			DataItemHolder holder = dataItemHolders.get(dataItemId);
+		for (DataItemHolder holder : getMatchingDataItems(topicFilter)) {
 			holder.subscriptionCount--;
-			if (holder.subscriptionCount == 0) {
-				subscribedDataItems.remove(dataItemId);
-			}
 		}
 	}
 
@@ -210,7 +324,6 @@ public final class DataGateway extends Gateway {
 
 	@Override
 	protected void onStop() {
-		subscribedDataItems.clear();
 		subscribedTopicFilters.clear();
 
 		for (DataItemHolder holder : dataItemHolders.values()) {
@@ -231,22 +344,16 @@ public final class DataGateway extends Gateway {
 	}
 
 	/**
-	 * Returns a set of data item identifiers that match a given topic filter.
+	 * Returns a list of data items whose identifiers match a given topic
+	 * filter.
 	 * 
 	 * @param topicFilter
 	 *            the topic filter.
-	 * @return the set of date item identifiers that match the topic filter.
+	 * @return the list of records of data items that match the topic filter.
 	 */
-	private Set<String> getMatchingDataItems(String topicFilter) {
-		TopicFilter filter = new TopicFilter(topicFilter);
-
-		Set<String> result = new HashSet<>();
-		for (Map.Entry<String, DataItemHolder> entry : dataItemHolders.entrySet()) {
-			if (filter.matchTopic(entry.getValue().parsedId)) {
-				result.add(entry.getKey());
-			}
-		}
-
+	private List<DataItemHolder> getMatchingDataItems(String topicFilter) {
+		List<DataItemHolder> result = new ArrayList<>();
+		dataItemTree.collectMatching(new TopicFilter(topicFilter), 0, result);
 		return result;
 	}
 }
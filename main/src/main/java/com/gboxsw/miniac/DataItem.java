@@ -1,8 +1,8 @@
 package com.gboxsw.miniac;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.*;
-import java.util.regex.Pattern;
 
 /**
  * Base class for data items.
@@ -18,9 +18,9 @@ public abstract class DataItem<T> {
 	private static final Logger logger = Logger.getLogger(DataItem.class.getName());
 
 	/**
-	 * Pattern defining a level of valid identifier of a data item.
+	 * Marker indicating that there is no pending coalesced change request.
 	 */
-	private static final Pattern idPattern = Pattern.compile("^[\\.a-zA-Z0-9_]+$");
+	private static final Object NO_PENDING_CHANGE = new Object();
 
 	/**
 	 * States of a data item.
@@ -85,6 +85,17 @@ public abstract class DataItem<T> {
 	 */
 	private volatile boolean synchronizationPending = false;
 
+	/**
+	 * Indicates whether pending change requests are coalesced.
+	 */
+	private volatile boolean coalescingChangeRequests = false;
+
+	/**
+	 * The value of the pending coalesced change request, or
+	 * {@link #NO_PENDING_CHANGE}, if there is no pending request.
+	 */
+	private final AtomicReference<Object> pendingChangeValue = new AtomicReference<>(NO_PENDING_CHANGE);
+
 	/**
 	 * Synchronization lock controlling the binding.
 	 */
@@ -213,10 +224,41 @@ public abstract class DataItem<T> {
 
 		checkAttached();
 		if (gateway != null) {
-			application.pushChangeRequest(this, newValue);
+			if (coalescingChangeRequests) {
+				// the pending request realizes the new value
+				if (pendingChangeValue.getAndSet(newValue) == NO_PENDING_CHANGE) {
+					application.pushCoalescedChangeRequest(this);
+				}
+			} else {
+				application.pushChangeRequest(this, newValue);
+			}
 		}
 	}
 
+	/**
+	 * Sets whether change requests of the data item are coalesced. If the
+	 * coalescing is enabled, a change request replaces the value of a pending
+	 * change request (if any), so that only the latest requested value is
+	 * passed to {@link #onValueChangeRequested(Object)}. By default, each
+	 * change request is realized.
+	 * 
+	 * @param coalescing
+	 *            true, if change requests are coalesced, false otherwise.
+	 */
+	public final void setCoalescingChangeRequests(boolean coalescing) {
+		coalescingChangeRequests = coalescing;
+	}
+
+	/**
+	 * Returns whether change requests of the data item are coalesced.
+	 * 
+	 * @see DataItem#setCoalescingChangeRequests(boolean)
+	 * @return true, if change requests are coalesced, false otherwise.
+	 */
+	public final boolean isCoalescingChangeRequests() {
+		return coalescingChangeRequests;
+	}
+
 	/**
 	 * Invalidates value of the data item.
 	 */
@@ -236,22 +278,38 @@ public abstract class DataItem<T> {
 
 	/**
 	 * Immediately updates the values of the data item from its source. The
-	 * method should be invoked from the main thread of the associated
-	 * application.
+	 * method should be invoked from the thread of the event loop that handles
+	 * the data item (the event loop of its data gateway, i.e., the main thread
+	 * of the associated application).
+	 * 
+	 * @see DataItem#isInEventLoop()
 	 */
 	protected final void update() {
 		if ((state != State.ACTIVATING) && (state != State.ACTIVE)) {
 			throw new IllegalStateException("Only activating or active data item can be updated.");
 		}
 
-		if (!application.isInApplicationThread()) {
+		if (!isInEventLoop()) {
 			throw new IllegalThreadStateException(
-					"The method \"update\" can be invoked only in the main application thread. Use the method \"invalidate\" instead of the method \"update\".");
+					"The method \"update\" can be invoked only in the thread of the event loop of the data item. Use the method \"invalidate\" instead of the method \"update\".");
 		}
 
 		synchronizeValue();
 	}
 
+	/**
+	 * Returns whether the method is executed in the thread of the event loop
+	 * that handles the data item, i.e., whether the value of data item can be
+	 * updated by the method {@link DataItem#update()}.
+	 * 
+	 * @return true, if the method is executed in the thread of the event loop
+	 *         of the data item, false otherwise.
+	 */
+	protected final boolean isInEventLoop() {
+		DataGateway currentGateway = gateway;
+		return (currentGateway != null) && currentGateway.isInEventLoop();
+	}
+
 	/**
 	 * Set dependencies of this data item. This method can be invoked only in
 	 * the {@link DataItem#onActivate(Bundle)} method.
@@ -438,6 +496,17 @@ public abstract class DataItem<T> {
 		}
 	}
 
+	/**
+	 * Realizes the pending coalesced change request. The methods is invoked by
+	 * the application in its main thread.
+	 */
+	void requestCoalescedValueChange() {
+		Object newValue = pendingChangeValue.getAndSet(NO_PENDING_CHANGE);
+		if (newValue != NO_PENDING_CHANGE) {
+			requestValueChange(newValue);
+		}
+	}
+
 	/**
 	 * Life-cycle method called when application activates attached data items.
 	 * The methods is invoked by the application in its main thread.
@@ -499,11 +568,22 @@ public abstract class DataItem<T> {
 				return false;
 			}
 
-			String[] parsedId = Application.parseTopicHierarchy(id);
-			for (String idPart : parsedId) {
-				if (!idPattern.matcher(idPart).matches()) {
+			// each level must be a non-empty sequence of characters
+			// [.a-zA-Z0-9_]
+			int levelStart = 0;
+			while (levelStart <= id.length()) {
+				int levelEnd = TopicLevels.levelEnd(id, levelStart);
+				if (levelEnd == levelStart) {
 					return false;
 				}
+
+				for (int i = levelStart; i < levelEnd; i++) {
+					if (!isValidIdChar(id.charAt(i))) {
+						return false;
+					}
+				}
+
+				levelStart = levelEnd + 1;
 			}
 
 			return true;
@@ -511,4 +591,17 @@ public abstract class DataItem<T> {
 			return false;
 		}
 	}
+
+	/**
+	 * Returns whether a character is allowed in a level of identifier of a
+	 * data item.
+	 * 
+	 * @param c
+	 *            the character.
+	 * @return true, if the character is allowed, false otherwise.
+	 */
+	private static boolean isValidIdChar(char c) {
+		return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == '.')
+				|| (c == '_');
+	}
 }
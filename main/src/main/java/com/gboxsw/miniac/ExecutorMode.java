@@ -0,0 +1,29 @@
+package com.gboxsw.miniac;
+
+/**
+ * Implementations of the executor service of the application that is used by
+ * gateways, modules and asynchronous subscriptions to offload blocking work.
+ *
+ * @see Application#setExecutorMode(ExecutorMode)
+ * @see Application#getExecutorService()
+ */
+public enum ExecutorMode {
+
+	/**
+	 * Cached thread pool that creates a new thread whenever no idle thread is
+	 * available (the number of threads is unbounded).
+	 */
+	CACHED,
+
+	/**
+	 * Work-stealing pool with a bounded number of threads. Tasks submitted
+	 * from outside of the pool are executed in the order of their submission.
+	 */
+	WORK_STEALING,
+
+	/**
+	 * Executor that starts a new virtual thread for each task. If the runtime
+	 * does not support virtual threads, the work-stealing pool is used.
+	 */
+	VIRTUAL_THREADS
+}
@@ -0,0 +1,105 @@
+package com.gboxsw.miniac;
+
+import java.util.Map;
+
+/**
+ * Immutable lookup table from string keys to values. The table uses open
+ * addressing with linear probing in a table that is at least twice as large as
+ * the number of entries, and hash codes of keys are stored next to keys, so
+ * that a lookup usually inspects a single slot. The table is created from a
+ * map once and it can be read by any thread without synchronization.
+ *
+ * @param <V>
+ *            the type of values.
+ */
+final class FrozenLookup<V> {
+
+	/**
+	 * Keys of slots (null for empty slots).
+	 */
+	private final String[] keys;
+
+	/**
+	 * Hash codes of keys of slots.
+	 */
+	private final int[] hashes;
+
+	/**
+	 * Values of slots.
+	 */
+	private final Object[] values;
+
+	/**
+	 * The mask of slot index.
+	 */
+	private final int mask;
+
+	/**
+	 * Constructs the lookup table with entries of a map.
+	 *
+	 * @param map
+	 *            the map with non-null keys.
+	 */
+	FrozenLookup(Map<String, ? extends V> map) {
+		int capacity = 2;
+		while (capacity < map.size() * 2) {
+			capacity <<= 1;
+		}
+
+		keys = new String[capacity];
+		hashes = new int[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+
+		for (Map.Entry<String, ? extends V> entry : map.entrySet()) {
+			String key = entry.getKey();
+			int hash = spread(key.hashCode());
+			int slot = hash & mask;
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+
+			keys[slot] = key;
+			hashes[slot] = hash;
+			values[slot] = entry.getValue();
+		}
+	}
+
+	/**
+	 * Returns the value associated with a key.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return the value, or null, if the key is not in the table.
+	 */
+	@SuppressWarnings("unchecked")
+	V get(String key) {
+		if (key == null) {
+			return null;
+		}
+
+		int hash = spread(key.hashCode());
+		int slot = hash & mask;
+		String slotKey;
+		while ((slotKey = keys[slot]) != null) {
+			if ((hashes[slot] == hash) && ((slotKey == key) || slotKey.equals(key))) {
+				return (V) values[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Spreads higher bits of a hash code to lower bits.
+	 *
+	 * @param hashCode
+	 *            the hash code.
+	 * @return the spread hash code.
+	 */
+	private static int spread(int hashCode) {
+		return hashCode ^ (hashCode >>> 16);
+	}
+}
@@ -1,5 +1,7 @@
 package com.gboxsw.miniac;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -23,6 +25,11 @@ public abstract class Gateway {
 	 */
 	private volatile Application application;
 
+	/**
+	 * The thread of the event loop that handles actions of the gateway.
+	 */
+	private volatile Thread eventLoopThread;
+
 	/**
 	 * Indicates whether the gateway is running, i.e., it has been started.
 	 */
@@ -69,6 +76,30 @@ public abstract class Gateway {
 		}
 	}
 
+	/**
+	 * Sets the thread of the event loop that handles actions of the gateway.
+	 * The method is invoked by the application before the gateway is started.
+	 * 
+	 * @param eventLoopThread
+	 *            the thread of the event loop.
+	 */
+	final void setEventLoopThread(Thread eventLoopThread) {
+		this.eventLoopThread = eventLoopThread;
+	}
+
+	/**
+	 * Returns whether the method is executed in the thread of the event loop
+	 * that handles publications, received messages and subscription changes of
+	 * the gateway.
+	 * 
+	 * @see Application#addGateway(String, Gateway, int)
+	 * @return true, if the method is executed in the thread of the event loop
+	 *         of the gateway, false otherwise.
+	 */
+	protected final boolean isInEventLoop() {
+		return Thread.currentThread() == eventLoopThread;
+	}
+
 	/**
 	 * Returns the identifier of the gateway in attached application.
 	 * 
@@ -126,12 +157,102 @@ public abstract class Gateway {
 	 */
 	protected void handleReceivedMessage(Message message) {
 		if (application != null) {
-			application.pushReceivedMessage(id, message);
+			application.pushReceivedMessage(id, message, null);
+		} else {
+			throw new IllegalStateException("The gateway is not attached to an application.");
+		}
+	}
+
+	/**
+	 * Handles a received message by forwarding the message to the application
+	 * to which the gateway is attached. The message is handled in the given
+	 * lane of actions, e.g., control messages can be handled before a flood of
+	 * telemetry. Messages received in different lanes are not ordered.
+	 * 
+	 * @param message
+	 *            the received message.
+	 * @param lane
+	 *            the lane of the message.
+	 */
+	protected void handleReceivedMessage(Message message, ActionLane lane) {
+		if (lane == null) {
+			throw new NullPointerException("Lane cannot be null.");
+		}
+
+		if (application != null) {
+			application.pushReceivedMessage(id, message, lane);
+		} else {
+			throw new IllegalStateException("The gateway is not attached to an application.");
+		}
+	}
+
+	/**
+	 * Handles a received message with an interned topic by forwarding the
+	 * message to the application to which the gateway is attached.
+	 * 
+	 * @see #registerTopic(String)
+	 * @param topicId
+	 *            the identifier of the topic returned by
+	 *            {@link #registerTopic(String)}.
+	 * @param payload
+	 *            the payload of the message.
+	 */
+	protected void handleReceivedMessage(int topicId, byte[] payload) {
+		if (application != null) {
+			application.pushReceivedMessage(id, topicId, payload, null);
+		} else {
+			throw new IllegalStateException("The gateway is not attached to an application.");
+		}
+	}
+
+	/**
+	 * Handles a received message with an interned topic by forwarding the
+	 * message to the application to which the gateway is attached. The
+	 * message is handled in the given lane of actions.
+	 * 
+	 * @see #registerTopic(String)
+	 * @see #handleReceivedMessage(Message, ActionLane)
+	 * @param topicId
+	 *            the identifier of the topic returned by
+	 *            {@link #registerTopic(String)}.
+	 * @param payload
+	 *            the payload of the message.
+	 * @param lane
+	 *            the lane of the message.
+	 */
+	protected void handleReceivedMessage(int topicId, byte[] payload, ActionLane lane) {
+		if (lane == null) {
+			throw new NullPointerException("Lane cannot be null.");
+		}
+
+		if (application != null) {
+			application.pushReceivedMessage(id, topicId, payload, lane);
 		} else {
 			throw new IllegalStateException("The gateway is not attached to an application.");
 		}
 	}
 
+	/**
+	 * Interns a topic of the gateway to a topic identifier. Messages with
+	 * interned topics are delivered without composing the fully-qualified
+	 * topic for each message.
+	 * 
+	 * @param topic
+	 *            the (localized) topic.
+	 * @return the identifier of the topic.
+	 */
+	protected final int registerTopic(String topic) {
+		if (application == null) {
+			throw new IllegalStateException("The gateway is not attached to an application.");
+		}
+
+		if (!Application.isValidTopicName(topic)) {
+			throw new IllegalArgumentException("Invalid topic name.");
+		}
+
+		return application.registerTopic(id, topic, true);
+	}
+
 	/**
 	 * Starts the gateway. The methods is invoked by the application in its main
 	 * thread.
@@ -179,7 +300,7 @@ public abstract class Gateway {
 	/**
 	 * Life-cycle method called by the application in order to redirect all
 	 * messages matching the topic filter to the application. The method is
-	 * executed in the main thread of the application instance between
+	 * executed in the thread of the event loop of the gateway between
 	 * {@link #onStart onStart} and {@link #onStop onStop} invocations.
 	 * 
 	 * @param topicFilter
@@ -190,7 +311,7 @@ public abstract class Gateway {
 	/**
 	 * Life-cycle method called by the application in order to stop redirection
 	 * of messages initiated by a previously added (registered) topic filter.
-	 * The method is executed in the main thread of the application instance
+	 * The method is executed in the thread of the event loop of the gateway
 	 * between {@link #onStart onStart} and {@link #onStop onStop} invocations.
 	 * 
 	 * @param topicFilter
@@ -198,10 +319,44 @@ public abstract class Gateway {
 	 */
 	protected abstract void onRemoveTopicFilter(String topicFilter);
 
+	/**
+	 * Life-cycle method called by the application in order to redirect all
+	 * messages matching any of the topic filters to the application. The
+	 * default implementation invokes {@link #onAddTopicFilter(String)} for each
+	 * topic filter. The method is executed in the thread of the event loop of
+	 * the gateway between {@link #onStart onStart} and {@link #onStop onStop}
+	 * invocations.
+	 * 
+	 * @param topicFilters
+	 *            the unmodifiable collection of topic filters.
+	 */
+	protected void onAddTopicFilters(Collection<String> topicFilters) {
+		for (String topicFilter : topicFilters) {
+			onAddTopicFilter(topicFilter);
+		}
+	}
+
+	/**
+	 * Life-cycle method called by the application in order to stop redirection
+	 * of messages initiated by previously added (registered) topic filters. The
+	 * default implementation invokes {@link #onRemoveTopicFilter(String)} for
+	 * each topic filter. The method is executed in the thread of the event
+	 * loop of the gateway between {@link #onStart onStart} and
+	 * {@link #onStop onStop} invocations.
+	 * 
+	 * @param topicFilters
+	 *            the unmodifiable collection of topic filters.
+	 */
+	protected void onRemoveTopicFilters(Collection<String> topicFilters) {
+		for (String topicFilter : topicFilters) {
+			onRemoveTopicFilter(topicFilter);
+		}
+	}
+
 	/**
 	 * Life-cycle method called by the application in order to publish a message
-	 * using the gateway. The method is executed in the main thread of the
-	 * application instance between {@link #onStart onStart} and {@link #onStop
+	 * using the gateway. The method is executed in the thread of the event loop
+	 * of the gateway between {@link #onStart onStart} and {@link #onStop
 	 * onStop} invocations.
 	 * 
 	 * @param message
@@ -209,11 +364,31 @@ public abstract class Gateway {
 	 */
 	protected abstract void onPublish(Message message);
 
+	/**
+	 * Life-cycle method called by the application in order to publish a batch
+	 * of messages using the gateway, see
+	 * {@link Application#publishAll(Collection)}. The default implementation
+	 * invokes {@link #onPublish(Message)} for each message, gateways can
+	 * override the method in order to write all messages at once. The method
+	 * is executed in the thread of the event loop of the gateway between
+	 * {@link #onStart onStart} and {@link #onStop onStop} invocations.
+	 * 
+	 * @param messages
+	 *            the unmodifiable list of messages in the order of
+	 *            publication.
+	 */
+	protected void onPublishBatch(List<Message> messages) {
+		for (Message message : messages) {
+			onPublish(message);
+		}
+	}
+
 	/**
 	 * Life-cycle method called by the application in order to save state of all
-	 * items related to the gateway. The method is executed in the main thread
-	 * of the application instance between {@link #onStart onStart} and
-	 * {@link #onStop onStop} invocations.
+	 * items related to the gateway. The method is executed in the thread of
+	 * the event loop of the gateway (or in the main thread of the application
+	 * instance, if the event loop is not running) between
+	 * {@link #onStart onStart} and {@link #onStop onStop} invocations.
 	 * 
 	 * @param outBundles
 	 *            the map to put bundles defining the state of gateway.
@@ -0,0 +1,187 @@
+package com.gboxsw.miniac;
+
+/**
+ * Immutable snapshot of a histogram of non-negative values (durations in
+ * nanoseconds) with exponential buckets. The bucket 0 counts zero values, the
+ * bucket i (i &gt; 0) counts values from 2^(i-1) to 2^i - 1. Percentiles are
+ * approximated by upper bounds of buckets, hence their relative error is at
+ * most 100%.
+ */
+public final class Histogram {
+
+	/**
+	 * The number of buckets of a histogram.
+	 */
+	public static final int BUCKET_COUNT = 64;
+
+	/**
+	 * Counts of values in buckets.
+	 */
+	private final long[] counts;
+
+	/**
+	 * The number of values.
+	 */
+	private final long count;
+
+	/**
+	 * The sum of values.
+	 */
+	private final long total;
+
+	/**
+	 * The maximal value.
+	 */
+	private final long max;
+
+	/**
+	 * Constructs the histogram.
+	 *
+	 * @param counts
+	 *            the counts of values in buckets (the array is not copied).
+	 * @param total
+	 *            the sum of values.
+	 * @param max
+	 *            the maximal value.
+	 */
+	Histogram(long[] counts, long total, long max) {
+		long count = 0;
+		for (long bucketCount : counts) {
+			count += bucketCount;
+		}
+
+		this.counts = counts;
+		this.count = count;
+		this.total = total;
+		this.max = max;
+	}
+
+	/**
+	 * Returns the index of bucket that counts a value.
+	 *
+	 * @param value
+	 *            the non-negative value.
+	 * @return the index of bucket.
+	 */
+	static int getBucket(long value) {
+		return 64 - Long.numberOfLeadingZeros(value);
+	}
+
+	/**
+	 * Returns the largest value counted by a bucket.
+	 *
+	 * @param bucket
+	 *            the index of bucket.
+	 * @return the upper bound of the bucket.
+	 */
+	public static long getBucketUpperBound(int bucket) {
+		if ((bucket < 0) || (bucket >= BUCKET_COUNT)) {
+			throw new IndexOutOfBoundsException("Invalid index of bucket.");
+		}
+
+		return (bucket == BUCKET_COUNT - 1) ? Long.MAX_VALUE : (1L << bucket) - 1;
+	}
+
+	/**
+	 * Returns the number of values counted by a bucket.
+	 *
+	 * @param bucket
+	 *            the index of bucket.
+	 * @return the number of values in the bucket.
+	 */
+	public long getBucketCount(int bucket) {
+		if ((bucket < 0) || (bucket >= BUCKET_COUNT)) {
+			throw new IndexOutOfBoundsException("Invalid index of bucket.");
+		}
+
+		return counts[bucket];
+	}
+
+	/**
+	 * Returns the number of values.
+	 *
+	 * @return the number of values.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the sum of values.
+	 *
+	 * @return the sum of values.
+	 */
+	public long getTotal() {
+		return total;
+	}
+
+	/**
+	 * Returns the maximal value.
+	 *
+	 * @return the maximal value, or 0, if the histogram is empty.
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Returns the mean value.
+	 *
+	 * @return the mean value, or 0, if the histogram is empty.
+	 */
+	public long getMean() {
+		return (count == 0) ? 0 : total / count;
+	}
+
+	/**
+	 * Returns the approximate percentile of values.
+	 *
+	 * @param percentile
+	 *            the percentile (from 0 to 100).
+	 * @return the upper bound of the bucket containing the percentile (at most
+	 *         the maximal value), or 0, if the histogram is empty.
+	 */
+	public long getPercentile(double percentile) {
+		if ((percentile < 0) || (percentile > 100)) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100.");
+		}
+
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max((long) Math.ceil(count * percentile / 100.0), 1);
+		long cumulativeCount = 0;
+		for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+			cumulativeCount += counts[bucket];
+			if (cumulativeCount >= rank) {
+				return Math.min(getBucketUpperBound(bucket), max);
+			}
+		}
+
+		return max;
+	}
+
+	/**
+	 * Returns histogram that merges values of this histogram and another
+	 * histogram.
+	 *
+	 * @param histogram
+	 *            the other histogram.
+	 * @return the merged histogram.
+	 */
+	Histogram merge(Histogram histogram) {
+		long[] mergedCounts = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			mergedCounts[i] = counts[i] + histogram.counts[i];
+		}
+
+		return new Histogram(mergedCounts, total + histogram.total, Math.max(max, histogram.max));
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + count + " mean=" + getMean() + " p50=" + getPercentile(50) + " p90=" + getPercentile(90)
+				+ " p99=" + getPercentile(99) + " max=" + max;
+	}
+}
@@ -0,0 +1,62 @@
+package com.gboxsw.miniac;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Recorder of values to a histogram. Values are recorded by a single thread
+ * without atomic read-modify-write operations, snapshots can be created by any
+ * thread.
+ *
+ * @see Histogram
+ */
+final class HistogramRecorder {
+
+	/**
+	 * Counts of values in buckets.
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(Histogram.BUCKET_COUNT);
+
+	/**
+	 * The sum of recorded values.
+	 */
+	private final AtomicLong total = new AtomicLong();
+
+	/**
+	 * The maximal recorded value.
+	 */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a value. The method must be invoked by a single thread.
+	 *
+	 * @param value
+	 *            the value, negative values are recorded as 0.
+	 */
+	void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		int bucket = Histogram.getBucket(value);
+		counts.lazySet(bucket, counts.get(bucket) + 1);
+		total.lazySet(total.get() + value);
+		if (value > max.get()) {
+			max.lazySet(value);
+		}
+	}
+
+	/**
+	 * Creates a snapshot of recorded values.
+	 *
+	 * @return the histogram.
+	 */
+	Histogram snapshot() {
+		long[] snapshotCounts = new long[Histogram.BUCKET_COUNT];
+		for (int i = 0; i < snapshotCounts.length; i++) {
+			snapshotCounts[i] = counts.get(i);
+		}
+
+		return new Histogram(snapshotCounts, total.get(), max.get());
+	}
+}
@@ -24,6 +24,12 @@ final class MailboxGateway extends Gateway {
 
 	@Override
 	protected void onPublish(Message message) {
+		// replies to requests are routed directly to pending requests
+		if (message.getTopic().startsWith(Application.REPLY_MAILBOX_PREFIX)) {
+			getApplication().handleReply(message);
+			return;
+		}
+
 		handleReceivedMessage(message);
 	}
 
@@ -32,6 +32,18 @@ public class Message {
 	 */
 	private final byte[] payload;
 
+	/**
+	 * Identifier of the topic in the topic registry of an application, or
+	 * {@link TopicRegistry#NO_ID}, if the identifier is not resolved.
+	 */
+	private final int topicId;
+
+	/**
+	 * The topic to which a reply to the message should be published, or null,
+	 * if the message is not a request.
+	 */
+	private final String replyTopic;
+
 	/**
 	 * Cached content of the message.
 	 */
@@ -47,8 +59,45 @@ public class Message {
 	 *            the future).
 	 */
 	public Message(String topic, byte[] payload) {
+		this(topic, payload, TopicRegistry.NO_ID);
+	}
+
+	/**
+	 * Constructs a message with resolved identifier of the topic.
+	 * 
+	 * @param topic
+	 *            the topic.
+	 * @param payload
+	 *            the payload (it is not allowed to modify the payload array in
+	 *            the future).
+	 * @param topicId
+	 *            the identifier of the topic in the topic registry of an
+	 *            application.
+	 */
+	Message(String topic, byte[] payload, int topicId) {
+		this(topic, payload, topicId, null);
+	}
+
+	/**
+	 * Constructs a message with resolved identifier of the topic and a reply
+	 * topic.
+	 * 
+	 * @param topic
+	 *            the topic.
+	 * @param payload
+	 *            the payload (it is not allowed to modify the payload array in
+	 *            the future).
+	 * @param topicId
+	 *            the identifier of the topic in the topic registry of an
+	 *            application.
+	 * @param replyTopic
+	 *            the topic to which a reply should be published, or null.
+	 */
+	Message(String topic, byte[] payload, int topicId, String replyTopic) {
 		this.topic = topic;
 		this.payload = (payload == null) ? EMPTY_PAYLOAD : payload;
+		this.topicId = topicId;
+		this.replyTopic = replyTopic;
 	}
 
 	/**
@@ -83,6 +132,29 @@ public class Message {
 		return topic;
 	}
 
+	/**
+	 * Returns the identifier of the topic in the topic registry of an
+	 * application.
+	 * 
+	 * @return the identifier of the topic, or {@link TopicRegistry#NO_ID}, if
+	 *         the identifier is not resolved.
+	 */
+	int getTopicId() {
+		return topicId;
+	}
+
+	/**
+	 * Returns the topic to which a reply to the message should be published.
+	 * The reply topic is set for requests sent by
+	 * {@link Application#request(Message, long, java.util.concurrent.TimeUnit)}
+	 * and it is preserved when the message is delivered by internal gateways.
+	 * 
+	 * @return the reply topic, or null, if the message is not a request.
+	 */
+	public String getReplyTopic() {
+		return replyTopic;
+	}
+
 	/**
 	 * Returns the payload of the message. The returned array is internal array
 	 * of the message. The content of the array cannot be modified.
@@ -129,7 +201,37 @@ public class Message {
 	 * @return the cloned message with modified topic.
 	 */
 	public Message cloneWithNewTopic(String newTopic) {
-		Message result = new Message(newTopic, payload);
+		return cloneWithNewTopic(newTopic, TopicRegistry.NO_ID);
+	}
+
+	/**
+	 * Clones the message with changed topic whose identifier is resolved.
+	 * 
+	 * @param newTopic
+	 *            the topic of returned the message.
+	 * @param newTopicId
+	 *            the identifier of the new topic in the topic registry of an
+	 *            application.
+	 * @return the cloned message with modified topic.
+	 */
+	Message cloneWithNewTopic(String newTopic, int newTopicId) {
+		Message result = new Message(newTopic, payload, newTopicId, replyTopic);
+		if (cachedContent != null) {
+			result.cachedContent = cachedContent;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Clones the message with a reply topic.
+	 * 
+	 * @param newReplyTopic
+	 *            the topic to which a reply should be published.
+	 * @return the cloned message with the reply topic.
+	 */
+	Message cloneWithReplyTopic(String newReplyTopic) {
+		Message result = new Message(topic, payload, TopicRegistry.NO_ID, newReplyTopic);
 		if (cachedContent != null) {
 			result.cachedContent = cachedContent;
 		}
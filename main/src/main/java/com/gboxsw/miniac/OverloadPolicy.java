@@ -0,0 +1,41 @@
+package com.gboxsw.miniac;
+
+/**
+ * Policies that determine how messages received by a gateway are handled,
+ * when the action queue of the event loop of the gateway is full.
+ *
+ * @see Application#setActionQueueCapacity(int)
+ * @see Application#setOverloadPolicy(String, OverloadPolicy)
+ */
+public enum OverloadPolicy {
+
+	/**
+	 * The thread of the gateway that received the message is blocked until
+	 * the action queue is not full. A blocked thread is woken up by the event
+	 * loop when an action is taken from the queue. Threads of event loops are
+	 * never blocked.
+	 */
+	BLOCK,
+
+	/**
+	 * The oldest pending message received by the gateway in the lane of the
+	 * received message is dropped in favour of the received message. If no
+	 * such message is pending (the queue is full due to other actions), the
+	 * received message is not dropped.
+	 */
+	DROP_OLDEST,
+
+	/**
+	 * The received message is dropped.
+	 */
+	DROP_NEWEST,
+
+	/**
+	 * The received message replaces the pending message with the same topic
+	 * received by the gateway in the same lane. A message with a topic that
+	 * has no pending message is not dropped, hence the number of pending
+	 * messages of the gateway is bounded by the number of its distinct topics
+	 * in each lane.
+	 */
+	CONFLATE
+}
@@ -0,0 +1,229 @@
+package com.gboxsw.miniac;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.*;
+
+/**
+ * Bounded mailbox of an asynchronous subscription. Messages are put into the
+ * mailbox by event loops and they are delivered to the message listener by a
+ * task submitted to an executor. At most one task of the mailbox is submitted
+ * at a time, hence messages are delivered serially in the order of their
+ * arrival.
+ *
+ * @see AsyncSubscription
+ */
+final class SubscriptionMailbox implements Runnable {
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger logger = Logger.getLogger(SubscriptionMailbox.class.getName());
+
+	/**
+	 * Maximal number of messages delivered by a task before the task is
+	 * resubmitted, so that busy mailboxes do not starve other tasks of the
+	 * executor.
+	 */
+	private static final int DELIVERY_BATCH_SIZE = 64;
+
+	/**
+	 * The message listener.
+	 */
+	private final MessageListener messageListener;
+
+	/**
+	 * The maximal number of pending messages.
+	 */
+	private final int capacity;
+
+	/**
+	 * The policy applied when the mailbox is full.
+	 */
+	private final OverloadPolicy overflowPolicy;
+
+	/**
+	 * The executor that delivers messages.
+	 */
+	private final Executor executor;
+
+	/**
+	 * The number of dropped messages of all mailboxes of the application.
+	 */
+	private final AtomicLong totalDroppedMessageCount;
+
+	/**
+	 * Pending messages.
+	 */
+	private final ArrayDeque<Message> messages = new ArrayDeque<>();
+
+	/**
+	 * Indicates whether a delivery task is submitted to the executor.
+	 */
+	private boolean scheduled;
+
+	/**
+	 * Indicates whether the mailbox is closed.
+	 */
+	private boolean closed;
+
+	/**
+	 * The number of delivered messages.
+	 */
+	private volatile long deliveredMessageCount;
+
+	/**
+	 * The number of dropped messages.
+	 */
+	private volatile long droppedMessageCount;
+
+	/**
+	 * Constructs the mailbox.
+	 * 
+	 * @param messageListener
+	 *            the message listener.
+	 * @param capacity
+	 *            the maximal number of pending messages.
+	 * @param overflowPolicy
+	 *            the policy applied when the mailbox is full.
+	 * @param executor
+	 *            the executor that delivers messages.
+	 * @param totalDroppedMessageCount
+	 *            the counter of dropped messages of all mailboxes.
+	 */
+	SubscriptionMailbox(MessageListener messageListener, int capacity, OverloadPolicy overflowPolicy,
+			Executor executor, AtomicLong totalDroppedMessageCount) {
+		this.messageListener = messageListener;
+		this.capacity = capacity;
+		this.overflowPolicy = overflowPolicy;
+		this.executor = executor;
+		this.totalDroppedMessageCount = totalDroppedMessageCount;
+	}
+
+	/**
+	 * Puts a message into the mailbox. If the mailbox is full, the overflow
+	 * policy is applied.
+	 * 
+	 * @param message
+	 *            the message.
+	 */
+	void offer(Message message) {
+		boolean submit;
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+
+			if (messages.size() >= capacity) {
+				droppedMessageCount++;
+				totalDroppedMessageCount.incrementAndGet();
+				if (overflowPolicy == OverloadPolicy.DROP_NEWEST) {
+					return;
+				}
+
+				messages.poll();
+			}
+
+			messages.offer(message);
+			submit = !scheduled;
+			scheduled = true;
+		}
+
+		if (submit) {
+			submit();
+		}
+	}
+
+	/**
+	 * Closes the mailbox. Pending messages are discarded.
+	 */
+	synchronized void close() {
+		closed = true;
+		messages.clear();
+	}
+
+	/**
+	 * Returns the maximal number of pending messages.
+	 * 
+	 * @return the capacity of the mailbox.
+	 */
+	int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of pending messages.
+	 * 
+	 * @return the number of pending messages.
+	 */
+	synchronized int getBacklog() {
+		return messages.size();
+	}
+
+	/**
+	 * Returns the number of delivered messages.
+	 * 
+	 * @return the number of delivered messages.
+	 */
+	long getDeliveredMessageCount() {
+		return deliveredMessageCount;
+	}
+
+	/**
+	 * Returns the number of dropped messages.
+	 * 
+	 * @return the number of dropped messages.
+	 */
+	long getDroppedMessageCount() {
+		return droppedMessageCount;
+	}
+
+	/**
+	 * Delivers a batch of pending messages. The method is executed by the
+	 * executor.
+	 */
+	@Override
+	public void run() {
+		for (int i = 0; i < DELIVERY_BATCH_SIZE; i++) {
+			Message message;
+			synchronized (this) {
+				message = messages.poll();
+				if (message == null) {
+					scheduled = false;
+					return;
+				}
+			}
+
+			try {
+				messageListener.onMessage(message);
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Message listener of asynchronous subscription threw an exception.", e);
+			}
+
+			deliveredMessageCount++;
+		}
+
+		// continue in a new task to let other tasks execute
+		submit();
+	}
+
+	/**
+	 * Submits the delivery task to the executor.
+	 */
+	private void submit() {
+		try {
+			executor.execute(this);
+		} catch (RejectedExecutionException e) {
+			logger.log(Level.WARNING, "Executor rejected delivery of messages of asynchronous subscription.");
+			synchronized (this) {
+				int discardedMessageCount = messages.size();
+				droppedMessageCount += discardedMessageCount;
+				totalDroppedMessageCount.addAndGet(discardedMessageCount);
+				messages.clear();
+				scheduled = false;
+			}
+		}
+	}
+}
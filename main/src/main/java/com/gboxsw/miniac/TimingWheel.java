@@ -0,0 +1,387 @@
+package com.gboxsw.miniac;
+
+/**
+ * Hierarchical timing wheel with resolution of one tick. Each level of the
+ * wheel has 64 slots, a slot of a level spans all slots of the level below.
+ * Entries are kept in doubly-linked lists of slots, so that insertion and
+ * removal of an entry take constant time. When the time of the wheel reaches a
+ * slot of an upper level, the entries of the slot are redistributed to lower
+ * levels. Occupied slots of each level are tracked in a bitmap, so that empty
+ * slots are skipped when the wheel advances.
+ *
+ * <p>
+ * An entry expires when the time passed to {@link #expire(long)} is greater
+ * than the expiration time of the entry. Expired entries are kept in the list
+ * of expired entries ordered by expiration time until they are polled. The
+ * class is not thread-safe.
+ */
+final class TimingWheel {
+
+	/**
+	 * Number of bits of time that address a slot in a level.
+	 */
+	private static final int SLOT_BITS = 6;
+
+	/**
+	 * The number of slots in a level.
+	 */
+	private static final int SLOTS = 1 << SLOT_BITS;
+
+	/**
+	 * The mask of slot index.
+	 */
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	/**
+	 * The number of levels (the wheel covers 2^42 ticks, i.e., more than 50
+	 * days for ticks of one microsecond, entries with longer delays are
+	 * redistributed when the top level wraps).
+	 */
+	private static final int LEVELS = 7;
+
+	/**
+	 * Index of the list of expired entries.
+	 */
+	private static final int EXPIRED_LIST = LEVELS * SLOTS;
+
+	/**
+	 * Index indicating that an entry is not in the wheel.
+	 */
+	private static final int NO_LIST = -1;
+
+	/**
+	 * Entry of the timing wheel.
+	 */
+	static class Entry {
+
+		/**
+		 * The time in ticks after which the entry expires.
+		 */
+		long expirationTime;
+
+		/**
+		 * The index of the list that contains the entry.
+		 */
+		private int list = NO_LIST;
+
+		/**
+		 * The previous entry in the list.
+		 */
+		private Entry prev;
+
+		/**
+		 * The next entry in the list.
+		 */
+		private Entry next;
+
+		/**
+		 * Returns whether the entry is in a timing wheel.
+		 *
+		 * @return true, if the entry is in a timing wheel, false otherwise.
+		 */
+		final boolean isScheduled() {
+			return list != NO_LIST;
+		}
+	}
+
+	/**
+	 * The first entries of lists (slots of all levels followed by the list of
+	 * expired entries).
+	 */
+	private final Entry[] heads = new Entry[LEVELS * SLOTS + 1];
+
+	/**
+	 * The last entries of lists.
+	 */
+	private final Entry[] tails = new Entry[LEVELS * SLOTS + 1];
+
+	/**
+	 * Bitmaps of non-empty slots of levels.
+	 */
+	private final long[] occupiedSlots = new long[LEVELS];
+
+	/**
+	 * The time of the wheel, i.e., the last tick whose entries have expired.
+	 */
+	private long time;
+
+	/**
+	 * The number of entries in the wheel (including expired entries).
+	 */
+	private int size;
+
+	/**
+	 * Constructs the timing wheel.
+	 *
+	 * @param now
+	 *            the current time in ticks.
+	 */
+	TimingWheel(long now) {
+		this.time = Math.max(now - 1, 0);
+	}
+
+	/**
+	 * Adds an entry to the wheel. The entry must not be in a wheel.
+	 *
+	 * @param entry
+	 *            the entry with set expiration time.
+	 */
+	void add(Entry entry) {
+		if (entry.list != NO_LIST) {
+			throw new IllegalStateException("The entry is already in the timing wheel.");
+		}
+
+		size++;
+		place(entry);
+	}
+
+	/**
+	 * Removes an entry from the wheel. If the entry is not in the wheel, the
+	 * method does nothing.
+	 *
+	 * @param entry
+	 *            the entry.
+	 */
+	void remove(Entry entry) {
+		if (entry.list == NO_LIST) {
+			return;
+		}
+
+		unlink(entry);
+		size--;
+	}
+
+	/**
+	 * Moves all entries whose expiration time precedes the given time to the
+	 * list of expired entries.
+	 *
+	 * @param now
+	 *            the current time in ticks.
+	 */
+	void expire(long now) {
+		long target = now - 1;
+		while (time < target) {
+			long eventTime = nextEventTime();
+			if (eventTime > target) {
+				time = target;
+				return;
+			}
+
+			time = eventTime;
+
+			// redistribute entries of upper levels whose slots are reached
+			for (int level = LEVELS - 1; level > 0; level--) {
+				if ((time & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+					int slot = (int) (time >>> (SLOT_BITS * level)) & SLOT_MASK;
+					Entry entry = detachList(level * SLOTS + slot);
+					while (entry != null) {
+						Entry nextEntry = entry.next;
+						entry.prev = null;
+						entry.next = null;
+						place(entry);
+						entry = nextEntry;
+					}
+				}
+			}
+
+			// expire entries of the current slot of the lowest level
+			int slot = (int) time & SLOT_MASK;
+			Entry entry = detachList(slot);
+			while (entry != null) {
+				Entry nextEntry = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				append(EXPIRED_LIST, entry);
+				entry = nextEntry;
+			}
+		}
+	}
+
+	/**
+	 * Returns the first expired entry without removing it.
+	 *
+	 * @return the first expired entry, or null, if there is no expired entry.
+	 */
+	Entry peekExpired() {
+		return heads[EXPIRED_LIST];
+	}
+
+	/**
+	 * Returns and removes the first expired entry.
+	 *
+	 * @return the first expired entry, or null, if there is no expired entry.
+	 */
+	Entry pollExpired() {
+		Entry entry = heads[EXPIRED_LIST];
+		if (entry != null) {
+			remove(entry);
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Returns the earliest time when an entry can expire or an upper level
+	 * of the wheel must be redistributed, i.e., the time when
+	 * {@link #expire(long)} should be invoked.
+	 *
+	 * @return the time in ticks, or {@link Long#MAX_VALUE}, if the wheel
+	 *         contains no entry.
+	 */
+	long nextExpirationTime() {
+		if (heads[EXPIRED_LIST] != null) {
+			return time + 1;
+		}
+
+		long eventTime = nextEventTime();
+		return (eventTime == Long.MAX_VALUE) ? Long.MAX_VALUE : eventTime + 1;
+	}
+
+	/**
+	 * Returns whether the wheel is empty.
+	 *
+	 * @return true, if the wheel is empty, false otherwise.
+	 */
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the number of entries in the wheel.
+	 *
+	 * @return the number of entries.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the nearest time after the time of the wheel when a non-empty
+	 * slot is reached.
+	 *
+	 * @return the time, or {@link Long#MAX_VALUE}, if all slots are empty.
+	 */
+	private long nextEventTime() {
+		long result = Long.MAX_VALUE;
+		for (int level = 0; level < LEVELS; level++) {
+			long occupied = occupiedSlots[level];
+			if (occupied == 0) {
+				continue;
+			}
+
+			int shift = SLOT_BITS * level;
+			int currentSlot = (int) (time >>> shift) & SLOT_MASK;
+
+			// find the first occupied slot following the current slot
+			long rotated = Long.rotateRight(occupied, currentSlot + 1);
+			int distance = Long.numberOfTrailingZeros(rotated) + 1;
+
+			long rotationStart = (time >>> shift) << shift;
+			long eventTime = rotationStart + ((long) distance << shift);
+			if (eventTime < result) {
+				result = eventTime;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Places an entry to the slot corresponding to its expiration time or to
+	 * the list of expired entries.
+	 *
+	 * @param entry
+	 *            the entry.
+	 */
+	private void place(Entry entry) {
+		long expirationTime = entry.expirationTime;
+		if (expirationTime <= time) {
+			append(EXPIRED_LIST, entry);
+			return;
+		}
+
+		// find the lowest level whose rotation contains the expiration time
+		int level = 0;
+		while ((level < LEVELS - 1)
+				&& ((expirationTime >>> (SLOT_BITS * (level + 1))) != (time >>> (SLOT_BITS * (level + 1))))) {
+			level++;
+		}
+
+		int slot;
+		if ((level == LEVELS - 1)
+				&& ((expirationTime >>> (SLOT_BITS * LEVELS)) != (time >>> (SLOT_BITS * LEVELS)))) {
+			// beyond the range of the wheel, use the farthest slot
+			slot = (int) (time >>> (SLOT_BITS * level)) & SLOT_MASK;
+		} else {
+			slot = (int) (expirationTime >>> (SLOT_BITS * level)) & SLOT_MASK;
+		}
+
+		append(level * SLOTS + slot, entry);
+		occupiedSlots[level] |= 1L << slot;
+	}
+
+	/**
+	 * Appends an entry to a list.
+	 *
+	 * @param list
+	 *            the index of the list.
+	 * @param entry
+	 *            the detached entry.
+	 */
+	private void append(int list, Entry entry) {
+		entry.list = list;
+		Entry tail = tails[list];
+		if (tail == null) {
+			heads[list] = entry;
+		} else {
+			tail.next = entry;
+			entry.prev = tail;
+		}
+		tails[list] = entry;
+	}
+
+	/**
+	 * Unlinks an entry from the list that contains the entry.
+	 *
+	 * @param entry
+	 *            the entry.
+	 */
+	private void unlink(Entry entry) {
+		int list = entry.list;
+		if (entry.prev == null) {
+			heads[list] = entry.next;
+		} else {
+			entry.prev.next = entry.next;
+		}
+
+		if (entry.next == null) {
+			tails[list] = entry.prev;
+		} else {
+			entry.next.prev = entry.prev;
+		}
+
+		if ((heads[list] == null) && (list != EXPIRED_LIST)) {
+			occupiedSlots[list / SLOTS] &= ~(1L << (list % SLOTS));
+		}
+
+		entry.list = NO_LIST;
+		entry.prev = null;
+		entry.next = null;
+	}
+
+	/**
+	 * Detaches all entries of a slot.
+	 *
+	 * @param list
+	 *            the index of the list of the slot.
+	 * @return the first entry of the detached list (entries are linked by
+	 *         their field next).
+	 */
+	private Entry detachList(int list) {
+		Entry head = heads[list];
+		heads[list] = null;
+		tails[list] = null;
+		occupiedSlots[list / SLOTS] &= ~(1L << (list % SLOTS));
+		return head;
+	}
+}
@@ -0,0 +1,131 @@
+package com.gboxsw.miniac;
+
+import java.util.*;
+
+import com.gboxsw.miniac.Application.TopicFilter;
+
+/**
+ * Bounded cache that maps concrete topics to values resolved for these topics.
+ * When the capacity of the cache is exceeded, the least recently used entry is
+ * evicted. The class is not thread-safe, only the statistics can be read by
+ * any thread.
+ *
+ * @param <V>
+ *            the type of cached values.
+ */
+final class TopicCache<V> {
+
+	/**
+	 * The maximal number of cached topics.
+	 */
+	private final int capacity;
+
+	/**
+	 * Cached values in access order.
+	 */
+	private final LinkedHashMap<String, V> entries;
+
+	/**
+	 * The number of successful lookups (written only by the thread that uses
+	 * the cache).
+	 */
+	private volatile long hits;
+
+	/**
+	 * The number of failed lookups (written only by the thread that uses the
+	 * cache).
+	 */
+	private volatile long misses;
+
+	/**
+	 * Constructs the cache.
+	 *
+	 * @param capacity
+	 *            the maximal number of cached topics, zero or negative value,
+	 *            if the cache is disabled.
+	 */
+	TopicCache(int capacity) {
+		this.capacity = Math.max(capacity, 0);
+		this.entries = new LinkedHashMap<String, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+				return size() > TopicCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached value for a topic.
+	 *
+	 * @param topic
+	 *            the topic.
+	 * @return the cached value, or null, if there is no value cached for the
+	 *         topic.
+	 */
+	V get(String topic) {
+		V value = entries.get(topic);
+		if (value == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return value;
+	}
+
+	/**
+	 * Stores a value resolved for a topic.
+	 *
+	 * @param topic
+	 *            the topic.
+	 * @param value
+	 *            the value.
+	 */
+	void put(String topic, V value) {
+		if (capacity > 0) {
+			entries.put(topic, value);
+		}
+	}
+
+	/**
+	 * Removes all cached topics that match a topic filter.
+	 *
+	 * @param filter
+	 *            the topic filter.
+	 */
+	void invalidate(TopicFilter filter) {
+		Iterator<String> it = entries.keySet().iterator();
+		while (it.hasNext()) {
+			if (filter.matchTopic(it.next())) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all cached topics.
+	 */
+	void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the number of successful lookups.
+	 *
+	 * @return the number of successful lookups.
+	 */
+	long getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of failed lookups.
+	 *
+	 * @return the number of failed lookups.
+	 */
+	long getMisses() {
+		return misses;
+	}
+}
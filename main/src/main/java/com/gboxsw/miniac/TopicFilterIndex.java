@@ -0,0 +1,548 @@
+package com.gboxsw.miniac;
+
+import java.util.*;
+
+import com.gboxsw.miniac.Application.TopicFilter;
+
+/**
+ * Immutable index of topic filters organized as a tree (trie) whose edges are
+ * labeled by levels of topic filters. The cost of finding topic filters
+ * matching a topic depends on the number of levels of the topic and not on the
+ * number of indexed topic filters. Topics are matched in place, i.e., without
+ * parsing them to levels.
+ *
+ * <p>
+ * Instances are immutable and can be safely read by any thread. Modified
+ * indices are created by an {@link Editor} that copies only the nodes on paths
+ * to modified topic filters (nodes created by the same editor are modified in
+ * place).
+ */
+final class TopicFilterIndex {
+
+	/**
+	 * Initial size of hash tables with child nodes.
+	 */
+	private static final int INITIAL_CHILD_TABLE_SIZE = 4;
+
+	/**
+	 * The empty index.
+	 */
+	static final TopicFilterIndex EMPTY = new TopicFilterIndex(new Node(null, null));
+
+	/**
+	 * Node of the tree.
+	 */
+	private static final class Node {
+
+		/**
+		 * The editor that created the node and can modify it in place.
+		 */
+		private final Object owner;
+
+		/**
+		 * The level of topic filter that labels the edge from the parent node.
+		 */
+		private final String level;
+
+		/**
+		 * Hash code of the level.
+		 */
+		private final int hash;
+
+		/**
+		 * Hash table (with open addressing) of child nodes for levels without
+		 * wild-cards. The table is indexed by hash codes of levels in order to
+		 * lookup a child node without extracting the level from a topic.
+		 */
+		private Node[] children;
+
+		/**
+		 * The number of child nodes in the hash table.
+		 */
+		private int childCount;
+
+		/**
+		 * Child node for the single level wild-card.
+		 */
+		private Node singleLevelWildcardChild;
+
+		/**
+		 * Topic filter whose last level corresponds to the node.
+		 */
+		private TopicFilter filter;
+
+		/**
+		 * Topic filter whose last level preceding the multi-level wild-card
+		 * corresponds to the node.
+		 */
+		private TopicFilter multiLevelWildcardFilter;
+
+		/**
+		 * Constructs the node.
+		 *
+		 * @param owner
+		 *            the editor that creates the node.
+		 * @param level
+		 *            the level that labels the edge from the parent node.
+		 */
+		private Node(Object owner, String level) {
+			this.owner = owner;
+			this.level = level;
+			this.hash = (level == null) ? 0 : level.hashCode();
+		}
+
+		/**
+		 * Returns the node that can be modified by an editor, i.e., the node
+		 * itself, if the node is owned by the editor, or its copy otherwise.
+		 *
+		 * @param editor
+		 *            the editor.
+		 * @return the node that can be modified in place by the editor.
+		 */
+		private Node editableBy(Object editor) {
+			if (owner == editor) {
+				return this;
+			}
+
+			Node copy = new Node(editor, level);
+			copy.children = (children == null) ? null : children.clone();
+			copy.childCount = childCount;
+			copy.singleLevelWildcardChild = singleLevelWildcardChild;
+			copy.filter = filter;
+			copy.multiLevelWildcardFilter = multiLevelWildcardFilter;
+			return copy;
+		}
+
+		/**
+		 * Returns the slot of the child node for a level of a topic.
+		 *
+		 * @param topic
+		 *            the topic.
+		 * @param levelStart
+		 *            the start offset of the level.
+		 * @param levelEnd
+		 *            the end offset of the level.
+		 * @param levelHash
+		 *            the hash code of the level.
+		 * @return the slot of the child node, or the free slot where the child
+		 *         node should be stored.
+		 */
+		private int findSlot(String topic, int levelStart, int levelEnd, int levelHash) {
+			int mask = children.length - 1;
+			int idx = levelHash & mask;
+			Node child;
+			while ((child = children[idx]) != null) {
+				if ((child.hash == levelHash) && TopicLevels.levelEquals(topic, levelStart, levelEnd, child.level)) {
+					break;
+				}
+				idx = (idx + 1) & mask;
+			}
+
+			return idx;
+		}
+
+		/**
+		 * Returns the child node for a level of a topic.
+		 *
+		 * @param topic
+		 *            the topic.
+		 * @param levelStart
+		 *            the start offset of the level.
+		 * @param levelEnd
+		 *            the end offset of the level.
+		 * @return the child node, or null, if there is no such child.
+		 */
+		private Node findChild(String topic, int levelStart, int levelEnd) {
+			if (children == null) {
+				return null;
+			}
+
+			int levelHash = TopicLevels.levelHashCode(topic, levelStart, levelEnd);
+			return children[findSlot(topic, levelStart, levelEnd, levelHash)];
+		}
+
+		/**
+		 * Returns the child node for a level.
+		 *
+		 * @param level
+		 *            the level.
+		 * @return the child node, or null, if there is no such child.
+		 */
+		private Node findChild(String level) {
+			if (children == null) {
+				return null;
+			}
+
+			return children[findSlot(level, 0, level.length(), level.hashCode())];
+		}
+
+		/**
+		 * Stores a child node. If there is a child node for the same level, it
+		 * is replaced. The node must be editable.
+		 *
+		 * @param child
+		 *            the child node.
+		 */
+		private void putChild(Node child) {
+			if (children == null) {
+				children = new Node[INITIAL_CHILD_TABLE_SIZE];
+			} else if (2 * (childCount + 1) > children.length) {
+				// rehash to a table with double size
+				Node[] oldChildren = children;
+				children = new Node[oldChildren.length * 2];
+				for (Node oldChild : oldChildren) {
+					if (oldChild != null) {
+						children[findSlot(oldChild.level, 0, oldChild.level.length(), oldChild.hash)] = oldChild;
+					}
+				}
+			}
+
+			int idx = findSlot(child.level, 0, child.level.length(), child.hash);
+			if (children[idx] == null) {
+				childCount++;
+			}
+			children[idx] = child;
+		}
+
+		/**
+		 * Removes the child node for a level. The node must be editable.
+		 *
+		 * @param level
+		 *            the level.
+		 */
+		private void removeChild(String level) {
+			int mask = children.length - 1;
+			int idx = findSlot(level, 0, level.length(), level.hashCode());
+			if (children[idx] == null) {
+				return;
+			}
+
+			children[idx] = null;
+			childCount--;
+			if (childCount == 0) {
+				children = null;
+				return;
+			}
+
+			// shift back the following nodes of the probing sequence
+			int freeIdx = idx;
+			idx = (idx + 1) & mask;
+			Node child;
+			while ((child = children[idx]) != null) {
+				int homeIdx = child.hash & mask;
+				boolean movable = (freeIdx <= idx) ? ((homeIdx <= freeIdx) || (homeIdx > idx))
+						: ((homeIdx <= freeIdx) && (homeIdx > idx));
+				if (movable) {
+					children[freeIdx] = child;
+					children[idx] = null;
+					freeIdx = idx;
+				}
+				idx = (idx + 1) & mask;
+			}
+		}
+
+		/**
+		 * Returns whether the node is empty, i.e., it contains no topic filter
+		 * and no child.
+		 *
+		 * @return true, if the node is empty, false otherwise.
+		 */
+		private boolean isEmpty() {
+			return (filter == null) && (multiLevelWildcardFilter == null) && (singleLevelWildcardChild == null)
+					&& (childCount == 0);
+		}
+	}
+
+	/**
+	 * Editor that creates a modified copy of an index. The editor is not
+	 * thread-safe.
+	 */
+	static final class Editor {
+
+		/**
+		 * The root of the edited tree.
+		 */
+		private Node root;
+
+		/**
+		 * Indicates whether the edited index has been built.
+		 */
+		private boolean built;
+
+		/**
+		 * Constructs the editor.
+		 *
+		 * @param index
+		 *            the index to be modified.
+		 */
+		private Editor(TopicFilterIndex index) {
+			this.root = index.root;
+		}
+
+		/**
+		 * Adds a topic filter to the index. If there is a topic filter with
+		 * the same text, it is replaced.
+		 *
+		 * @param filter
+		 *            the topic filter.
+		 */
+		void add(TopicFilter filter) {
+			checkNotBuilt();
+			root = root.editableBy(this);
+			Node node = root;
+			for (String level : filter.getLevels()) {
+				Node child;
+				if (level == Application.SINGLE_LEVEL_WILDCARD) {
+					child = node.singleLevelWildcardChild;
+					child = (child == null) ? new Node(this, level) : child.editableBy(this);
+					node.singleLevelWildcardChild = child;
+				} else {
+					child = node.findChild(level);
+					child = (child == null) ? new Node(this, level) : child.editableBy(this);
+					node.putChild(child);
+				}
+				node = child;
+			}
+
+			if (filter.endsWithMultiLevelWildcard()) {
+				node.multiLevelWildcardFilter = filter;
+			} else {
+				node.filter = filter;
+			}
+		}
+
+		/**
+		 * Removes a topic filter from the index.
+		 *
+		 * @param filter
+		 *            the topic filter.
+		 */
+		void remove(TopicFilter filter) {
+			checkNotBuilt();
+			Node editableRoot = root.editableBy(this);
+			remove(editableRoot, filter, 0);
+			root = editableRoot;
+		}
+
+		/**
+		 * Recursively removes a topic filter from a subtree. Empty nodes are
+		 * removed from the subtree.
+		 *
+		 * @param node
+		 *            the editable root of the subtree.
+		 * @param filter
+		 *            the topic filter.
+		 * @param levelIdx
+		 *            the index of level of the topic filter that corresponds
+		 *            to the subtree.
+		 * @return true, if the root of the subtree is empty after removal,
+		 *         false otherwise.
+		 */
+		private boolean remove(Node node, TopicFilter filter, int levelIdx) {
+			String[] levels = filter.getLevels();
+			if (levelIdx == levels.length) {
+				if (filter.endsWithMultiLevelWildcard()) {
+					if (node.multiLevelWildcardFilter == filter) {
+						node.multiLevelWildcardFilter = null;
+					}
+				} else {
+					if (node.filter == filter) {
+						node.filter = null;
+					}
+				}
+
+				return node.isEmpty();
+			}
+
+			String level = levels[levelIdx];
+			if (level == Application.SINGLE_LEVEL_WILDCARD) {
+				if (node.singleLevelWildcardChild == null) {
+					return false;
+				}
+
+				Node child = node.singleLevelWildcardChild.editableBy(this);
+				node.singleLevelWildcardChild = remove(child, filter, levelIdx + 1) ? null : child;
+			} else {
+				Node child = node.findChild(level);
+				if (child == null) {
+					return false;
+				}
+
+				child = child.editableBy(this);
+				if (remove(child, filter, levelIdx + 1)) {
+					node.removeChild(level);
+				} else {
+					node.putChild(child);
+				}
+			}
+
+			return node.isEmpty();
+		}
+
+		/**
+		 * Returns the topic filter in the edited index.
+		 *
+		 * @param topicFilter
+		 *            the topic filter.
+		 * @return the indexed topic filter, or null, if the topic filter is
+		 *         not indexed.
+		 */
+		TopicFilter get(String topicFilter) {
+			checkNotBuilt();
+			return TopicFilterIndex.get(root, topicFilter);
+		}
+
+		/**
+		 * Returns the modified index. The editor cannot be used after the
+		 * index is built.
+		 *
+		 * @return the modified index.
+		 */
+		TopicFilterIndex build() {
+			checkNotBuilt();
+			built = true;
+			return new TopicFilterIndex(root);
+		}
+
+		/**
+		 * Checks that the modified index has not been built.
+		 */
+		private void checkNotBuilt() {
+			if (built) {
+				throw new IllegalStateException("The index has been already built.");
+			}
+		}
+	}
+
+	/**
+	 * The root of the tree.
+	 */
+	private final Node root;
+
+	/**
+	 * Constructs the index.
+	 *
+	 * @param root
+	 *            the root of the tree.
+	 */
+	private TopicFilterIndex(Node root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns an editor that creates a modified copy of the index.
+	 *
+	 * @return the editor.
+	 */
+	Editor edit() {
+		return new Editor(this);
+	}
+
+	/**
+	 * Returns the indexed topic filter.
+	 *
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @return the indexed topic filter, or null, if the topic filter is not
+	 *         indexed.
+	 */
+	TopicFilter get(String topicFilter) {
+		return get(root, topicFilter);
+	}
+
+	/**
+	 * Returns the topic filter indexed in a tree.
+	 *
+	 * @param root
+	 *            the root of the tree.
+	 * @param topicFilter
+	 *            the topic filter.
+	 * @return the indexed topic filter, or null, if the topic filter is not
+	 *         indexed.
+	 */
+	private static TopicFilter get(Node root, String topicFilter) {
+		Node node = root;
+		int levelStart = 0;
+		while (levelStart <= topicFilter.length()) {
+			int levelEnd = TopicLevels.levelEnd(topicFilter, levelStart);
+			if (TopicLevels.levelEquals(topicFilter, levelStart, levelEnd, Application.MULTI_LEVEL_WILDCARD)) {
+				return node.multiLevelWildcardFilter;
+			}
+
+			if (TopicLevels.levelEquals(topicFilter, levelStart, levelEnd, Application.SINGLE_LEVEL_WILDCARD)) {
+				node = node.singleLevelWildcardChild;
+			} else {
+				node = node.findChild(topicFilter, levelStart, levelEnd);
+			}
+
+			if (node == null) {
+				return null;
+			}
+
+			levelStart = levelEnd + 1;
+		}
+
+		return node.filter;
+	}
+
+	/**
+	 * Returns whether the index is empty.
+	 *
+	 * @return true, if the index is empty, false otherwise.
+	 */
+	boolean isEmpty() {
+		return root.isEmpty();
+	}
+
+	/**
+	 * Adds all indexed topic filters that match a topic to a list.
+	 *
+	 * @param topic
+	 *            the topic.
+	 * @param result
+	 *            the list where the matching topic filters are added.
+	 */
+	void collectMatchingFilters(String topic, List<TopicFilter> result) {
+		collectMatchingFilters(root, topic, 0, result);
+	}
+
+	/**
+	 * Recursively adds all topic filters in a subtree that match a suffix of
+	 * a topic.
+	 *
+	 * @param node
+	 *            the root of subtree.
+	 * @param topic
+	 *            the topic.
+	 * @param levelStart
+	 *            the start offset of the first level of the topic suffix, or
+	 *            a value greater than length of the topic, if the suffix is
+	 *            empty.
+	 * @param result
+	 *            the list where the matching topic filters are added.
+	 */
+	private static void collectMatchingFilters(Node node, String topic, int levelStart, List<TopicFilter> result) {
+		// multi-level wild-card matches the parent level and all descendants
+		if (node.multiLevelWildcardFilter != null) {
+			result.add(node.multiLevelWildcardFilter);
+		}
+
+		if (levelStart > topic.length()) {
+			if (node.filter != null) {
+				result.add(node.filter);
+			}
+
+			return;
+		}
+
+		int levelEnd = TopicLevels.levelEnd(topic, levelStart);
+		Node child = node.findChild(topic, levelStart, levelEnd);
+		if (child != null) {
+			collectMatchingFilters(child, topic, levelEnd + 1, result);
+		}
+
+		if (node.singleLevelWildcardChild != null) {
+			collectMatchingFilters(node.singleLevelWildcardChild, topic, levelEnd + 1, result);
+		}
+	}
+}
@@ -0,0 +1,101 @@
+package com.gboxsw.miniac;
+
+/**
+ * Offset-based view of levels of topic names and topic filters. A level is
+ * identified by its start (inclusive) and end (exclusive) offset in the topic
+ * string, so that levels can be traversed and compared without allocation of
+ * substrings or arrays.
+ *
+ * <p>
+ * Typical traversal of levels:
+ *
+ * <pre>
+ * int start = 0;
+ * while (start &lt;= topic.length()) {
+ * 	int end = TopicLevels.levelEnd(topic, start);
+ * 	// process level [start, end)
+ * 	start = end + 1;
+ * }
+ * </pre>
+ */
+final class TopicLevels {
+
+	/**
+	 * Private constructor to prevent instances.
+	 */
+	private TopicLevels() {
+
+	}
+
+	/**
+	 * Returns the end offset (exclusive) of a level.
+	 *
+	 * @param topic
+	 *            the topic name or topic filter.
+	 * @param levelStart
+	 *            the start offset of the level.
+	 * @return the end offset of the level, i.e., the offset of the separator
+	 *         following the level or length of the topic, if the level is the
+	 *         last level.
+	 */
+	static int levelEnd(String topic, int levelStart) {
+		int slashIdx = topic.indexOf('/', levelStart);
+		return (slashIdx < 0) ? topic.length() : slashIdx;
+	}
+
+	/**
+	 * Returns whether a level of topic is equal to a string.
+	 *
+	 * @param topic
+	 *            the topic name or topic filter.
+	 * @param levelStart
+	 *            the start offset of the level.
+	 * @param levelEnd
+	 *            the end offset of the level.
+	 * @param level
+	 *            the string.
+	 * @return true, if the level is equal to the string, false otherwise.
+	 */
+	static boolean levelEquals(String topic, int levelStart, int levelEnd, String level) {
+		int length = levelEnd - levelStart;
+		return (level.length() == length) && topic.regionMatches(levelStart, level, 0, length);
+	}
+
+	/**
+	 * Returns hash code of a level. The hash code is equal to the hash code of
+	 * the level as a string.
+	 *
+	 * @param topic
+	 *            the topic name or topic filter.
+	 * @param levelStart
+	 *            the start offset of the level.
+	 * @param levelEnd
+	 *            the end offset of the level.
+	 * @return the hash code.
+	 */
+	static int levelHashCode(String topic, int levelStart, int levelEnd) {
+		int hash = 0;
+		for (int i = levelStart; i < levelEnd; i++) {
+			hash = 31 * hash + topic.charAt(i);
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Returns the number of levels of a topic.
+	 *
+	 * @param topic
+	 *            the topic name or topic filter.
+	 * @return the number of levels.
+	 */
+	static int countLevels(String topic) {
+		int result = 1;
+		int slashIdx = -1;
+		while ((slashIdx = topic.indexOf('/', slashIdx + 1)) >= 0) {
+			result++;
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,258 @@
+package com.gboxsw.miniac;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table that interns concrete topics to compact integer identifiers.
+ * Topics are registered in namespaces of gateways. For each registered topic,
+ * the registry stores the topic within the gateway and the fully-qualified
+ * topic (including the identifier of the gateway), so that the fully-qualified
+ * topic is not created for each delivered message. The class is thread-safe.
+ */
+final class TopicRegistry {
+
+	/**
+	 * Identifier indicating that a topic is not registered.
+	 */
+	static final int NO_ID = -1;
+
+	/**
+	 * Initial size of the table of registered topics.
+	 */
+	private static final int INITIAL_SIZE = 64;
+
+	/**
+	 * Registered topic.
+	 */
+	private static final class Entry {
+
+		/**
+		 * The namespace of the topic.
+		 */
+		private final Namespace namespace;
+
+		/**
+		 * The topic within the gateway.
+		 */
+		private final String localTopic;
+
+		/**
+		 * The fully-qualified topic.
+		 */
+		private final String topic;
+
+		/**
+		 * Constructs the entry.
+		 *
+		 * @param namespace
+		 *            the namespace of the topic.
+		 * @param localTopic
+		 *            the topic within the gateway.
+		 */
+		private Entry(Namespace namespace, String localTopic) {
+			this.namespace = namespace;
+			this.localTopic = localTopic;
+			this.topic = namespace.prefix + localTopic;
+		}
+	}
+
+	/**
+	 * Namespace of topics of a gateway.
+	 */
+	final class Namespace {
+
+		/**
+		 * The prefix of fully-qualified topics in the namespace.
+		 */
+		private final String prefix;
+
+		/**
+		 * Mapping of registered topics to their identifiers.
+		 */
+		private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+		/**
+		 * Constructs the namespace.
+		 *
+		 * @param gatewayId
+		 *            the identifier of the gateway.
+		 */
+		private Namespace(String gatewayId) {
+			this.prefix = gatewayId + "/";
+		}
+
+		/**
+		 * Returns the identifier of a topic within the gateway. If the topic is
+		 * not registered and the registry is not full, the topic is
+		 * registered.
+		 *
+		 * @param localTopic
+		 *            the topic within the gateway.
+		 * @return the identifier of the topic, or {@link TopicRegistry#NO_ID},
+		 *         if the topic is not registered.
+		 */
+		int register(String localTopic) {
+			return register(localTopic, false);
+		}
+
+		/**
+		 * Returns the identifier of a topic within the gateway. If the topic is
+		 * not registered, the topic is registered.
+		 *
+		 * @param localTopic
+		 *            the topic within the gateway.
+		 * @param ignoreCapacity
+		 *            true, if the topic is registered even if the registry is
+		 *            full, false otherwise.
+		 * @return the identifier of the topic, or {@link TopicRegistry#NO_ID},
+		 *         if the topic is not registered.
+		 */
+		int register(String localTopic, boolean ignoreCapacity) {
+			Integer id = ids.get(localTopic);
+			if (id != null) {
+				return id;
+			}
+
+			synchronized (lock) {
+				id = ids.get(localTopic);
+				if (id != null) {
+					return id;
+				}
+
+				if ((size >= capacity) && !ignoreCapacity) {
+					return NO_ID;
+				}
+
+				Entry[] currentEntries = entries;
+				if (size == currentEntries.length) {
+					Entry[] newEntries = new Entry[currentEntries.length * 2];
+					System.arraycopy(currentEntries, 0, newEntries, 0, size);
+					currentEntries = newEntries;
+				}
+
+				// the entry must be visible before the identifier is published
+				currentEntries[size] = new Entry(this, localTopic);
+				entries = currentEntries;
+				ids.put(localTopic, size);
+				return size++;
+			}
+		}
+
+		/**
+		 * Returns whether a topic identifier identifies a topic registered in
+		 * this namespace.
+		 *
+		 * @param id
+		 *            the identifier of the topic.
+		 * @return true, if the topic is registered in this namespace, false
+		 *         otherwise.
+		 */
+		boolean contains(int id) {
+			Entry[] currentEntries = entries;
+			if ((id < 0) || (id >= currentEntries.length)) {
+				return false;
+			}
+
+			Entry entry = currentEntries[id];
+			return (entry != null) && (entry.namespace == this);
+		}
+
+		/**
+		 * Returns the identifier of the topic of a message received from the
+		 * gateway. The identifier carried by the message is used, if it
+		 * identifies the topic of the message in this namespace.
+		 *
+		 * @param message
+		 *            the message with a topic within the gateway.
+		 * @return the identifier of the topic, or {@link TopicRegistry#NO_ID},
+		 *         if the topic is not registered.
+		 */
+		int resolve(Message message) {
+			int id = message.getTopicId();
+			Entry[] currentEntries = entries;
+			if ((id >= 0) && (id < currentEntries.length)) {
+				Entry entry = currentEntries[id];
+				if ((entry != null) && (entry.namespace == this) && entry.localTopic.equals(message.getTopic())) {
+					return id;
+				}
+			}
+
+			return register(message.getTopic());
+		}
+	}
+
+	/**
+	 * Maximal number of topics registered without explicit request to ignore
+	 * the capacity.
+	 */
+	private final int capacity;
+
+	/**
+	 * Registered topics indexed by their identifiers.
+	 */
+	private volatile Entry[] entries = new Entry[INITIAL_SIZE];
+
+	/**
+	 * The number of registered topics.
+	 */
+	private int size;
+
+	/**
+	 * Synchronization lock controlling registration of topics.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Constructs the registry.
+	 *
+	 * @param capacity
+	 *            the maximal number of registered topics.
+	 */
+	TopicRegistry(int capacity) {
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Creates namespace for topics of a gateway.
+	 *
+	 * @param gatewayId
+	 *            the identifier of the gateway.
+	 * @return the namespace.
+	 */
+	Namespace createNamespace(String gatewayId) {
+		return new Namespace(gatewayId);
+	}
+
+	/**
+	 * Returns the fully-qualified topic.
+	 *
+	 * @param id
+	 *            the identifier of a registered topic.
+	 * @return the fully-qualified topic.
+	 */
+	String getTopic(int id) {
+		return entries[id].topic;
+	}
+
+	/**
+	 * Returns the topic within the gateway.
+	 *
+	 * @param id
+	 *            the identifier of a registered topic.
+	 * @return the topic within the gateway.
+	 */
+	String getLocalTopic(int id) {
+		return entries[id].localTopic;
+	}
+
+	/**
+	 * Returns the number of registered topics.
+	 *
+	 * @return the number of registered topics.
+	 */
+	int size() {
+		synchronized (lock) {
+			return size;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.gboxsw.miniac.dataitems;
+
+import com.gboxsw.miniac.*;
+import com.gboxsw.miniac.utils.ClockService;
+
+/**
+ * Data item whose value is the day of week ({@link java.util.Calendar#SUNDAY}
+ * to {@link java.util.Calendar#SATURDAY}). The value is changed at midnight by
+ * the shared {@link ClockService}.
+ */
+public final class DayOfWeekClockDataItem extends DataItem<Integer> {
+
+	/**
+	 * The clock service of the application.
+	 */
+	private ClockService clockService;
+
+	/**
+	 * Cancellable generator of ticks.
+	 */
+	private Cancellable tickGenerator;
+
+	/**
+	 * Constructs the day of week clock.
+	 */
+	public DayOfWeekClockDataItem() {
+		super(Integer.class, true);
+	}
+
+	@Override
+	protected void onActivate(Bundle savedState) {
+		clockService = ClockService.getInstance(getApplication());
+		tickGenerator = clockService.addTickListener(ClockService.Resolution.DAY, new Runnable() {
+			@Override
+			public void run() {
+				invalidate();
+			}
+		});
+
+		update();
+	}
+
+	@Override
+	protected Integer onSynchronizeValue() {
+		return clockService.getDayOfWeek();
+	}
+
+	@Override
+	protected void onValueChangeRequested(Integer newValue) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onSaveState(Bundle outState) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onDeactivate() {
+		tickGenerator.cancel();
+	}
+}
@@ -0,0 +1,62 @@
+package com.gboxsw.miniac.dataitems;
+
+import com.gboxsw.miniac.*;
+import com.gboxsw.miniac.utils.ClockService;
+
+/**
+ * Data item whose value is the number of seconds since the epoch
+ * (1970-01-01T00:00:00Z). The value is changed at boundaries of seconds by the
+ * shared {@link ClockService}.
+ */
+public final class EpochClockDataItem extends DataItem<Long> {
+
+	/**
+	 * The clock service of the application.
+	 */
+	private ClockService clockService;
+
+	/**
+	 * Cancellable generator of ticks.
+	 */
+	private Cancellable tickGenerator;
+
+	/**
+	 * Constructs the epoch clock.
+	 */
+	public EpochClockDataItem() {
+		super(Long.class, true);
+	}
+
+	@Override
+	protected void onActivate(Bundle savedState) {
+		clockService = ClockService.getInstance(getApplication());
+		tickGenerator = clockService.addTickListener(ClockService.Resolution.SECOND, new Runnable() {
+			@Override
+			public void run() {
+				invalidate();
+			}
+		});
+
+		update();
+	}
+
+	@Override
+	protected Long onSynchronizeValue() {
+		return clockService.getEpochSecond();
+	}
+
+	@Override
+	protected void onValueChangeRequested(Long newValue) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onSaveState(Bundle outState) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onDeactivate() {
+		tickGenerator.cancel();
+	}
+}
@@ -1,15 +1,19 @@
 package com.gboxsw.miniac.dataitems;
 
-import java.util.Calendar;
-import java.util.concurrent.TimeUnit;
-
 import com.gboxsw.miniac.*;
+import com.gboxsw.miniac.utils.ClockService;
 
 /**
- * Data item whose value is changed every minute.
+ * Data item whose value is the minute of day. The value is changed at
+ * boundaries of minutes by the shared {@link ClockService}.
  */
 public final class MinuteClockDataItem extends DataItem<Integer> {
 
+	/**
+	 * The clock service of the application.
+	 */
+	private ClockService clockService;
+
 	/**
 	 * Cancellable generator of ticks.
 	 */
@@ -54,21 +58,20 @@ public final class MinuteClockDataItem extends DataItem<Integer> {
 
 	@Override
 	protected void onActivate(Bundle savedState) {
-		Application app = getApplication();
-		tickGenerator = app.invokeAtFixedRate(new Runnable() {
+		clockService = ClockService.getInstance(getApplication());
+		tickGenerator = clockService.addTickListener(ClockService.Resolution.MINUTE, new Runnable() {
 			@Override
 			public void run() {
-				update();
+				invalidate();
 			}
-		}, 30, 30, TimeUnit.SECONDS);
-	
+		});
+
 		update();
 	}
 
 	@Override
 	protected Integer onSynchronizeValue() {
-		Calendar calendar = Calendar.getInstance();
-		return calendar.get(Calendar.HOUR_OF_DAY) * 60 + calendar.get(Calendar.MINUTE);
+		return clockService.getMinuteOfDay();
 	}
 
 	@Override
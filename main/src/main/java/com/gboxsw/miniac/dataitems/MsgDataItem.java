@@ -45,9 +45,11 @@ public final class MsgDataItem<T> extends DataItem<T> {
 	private volatile Subscription subscription;
 
 	/**
-	 * The last received value of the data item.
+	 * The last received value of the data item. The value is written in the
+	 * thread of the event loop of the gateway that receives the messages and
+	 * read in the thread of the event loop of the data item.
 	 */
-	private T remoteValue;
+	private volatile T remoteValue;
 
 	/**
 	 * Constructs the data item.
@@ -96,7 +98,14 @@ public final class MsgDataItem<T> extends DataItem<T> {
 					remoteValue = null;
 					logger.log(Level.WARNING, "Conversion of updating value for data item " + getId() + " failed.", e);
 				}
-				update();
+
+				// messages of gateways in other event loops are not handled
+				// in the thread of the data item
+				if (isInEventLoop()) {
+					update();
+				} else {
+					invalidate();
+				}
 			}
 		}, SUBSCRIPTION_HANDLING_PRIORITY);
 	}
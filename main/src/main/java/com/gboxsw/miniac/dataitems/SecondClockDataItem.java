@@ -0,0 +1,106 @@
+package com.gboxsw.miniac.dataitems;
+
+import com.gboxsw.miniac.*;
+import com.gboxsw.miniac.utils.ClockService;
+
+/**
+ * Data item whose value is the second of day. The value is changed at
+ * boundaries of seconds by the shared {@link ClockService}.
+ */
+public final class SecondClockDataItem extends DataItem<Integer> {
+
+	/**
+	 * The clock service of the application.
+	 */
+	private ClockService clockService;
+
+	/**
+	 * Cancellable generator of ticks.
+	 */
+	private Cancellable tickGenerator;
+
+	/**
+	 * Constructs the second clock.
+	 */
+	public SecondClockDataItem() {
+		super(Integer.class, true);
+	}
+
+	/**
+	 * Returns hour of day that corresponds to the current value of the data
+	 * item.
+	 * 
+	 * @return the hour of day.
+	 */
+	public int getHour() {
+		Integer secondOfDay = getValue();
+		if (secondOfDay == null) {
+			return -1;
+		} else {
+			return secondOfDay / 3600;
+		}
+	}
+
+	/**
+	 * Returns minute of hour that corresponds to the current value of the data
+	 * item.
+	 * 
+	 * @return the minute of hour.
+	 */
+	public int getMinute() {
+		Integer secondOfDay = getValue();
+		if (secondOfDay == null) {
+			return -1;
+		} else {
+			return (secondOfDay / 60) % 60;
+		}
+	}
+
+	/**
+	 * Returns second of minute that corresponds to the current value of the
+	 * data item.
+	 * 
+	 * @return the second of minute.
+	 */
+	public int getSecond() {
+		Integer secondOfDay = getValue();
+		if (secondOfDay == null) {
+			return -1;
+		} else {
+			return secondOfDay % 60;
+		}
+	}
+
+	@Override
+	protected void onActivate(Bundle savedState) {
+		clockService = ClockService.getInstance(getApplication());
+		tickGenerator = clockService.addTickListener(ClockService.Resolution.SECOND, new Runnable() {
+			@Override
+			public void run() {
+				invalidate();
+			}
+		});
+
+		update();
+	}
+
+	@Override
+	protected Integer onSynchronizeValue() {
+		return clockService.getSecondOfDay();
+	}
+
+	@Override
+	protected void onValueChangeRequested(Integer newValue) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onSaveState(Bundle outState) {
+		// nothing to do
+	}
+
+	@Override
+	protected void onDeactivate() {
+		tickGenerator.cancel();
+	}
+}
@@ -0,0 +1,434 @@
+package com.gboxsw.miniac.utils;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.*;
+
+import com.gboxsw.miniac.Application;
+import com.gboxsw.miniac.Cancellable;
+
+/**
+ * Wall-clock service shared by all clock data items of an application. The
+ * service uses a single timer aligned to boundaries of seconds, minutes, hours
+ * or days in the default time zone (the finest resolution required by
+ * registered tick listeners). Fields of the wall-clock time are computed
+ * arithmetically from the time of the last tick, i.e., without creating a
+ * {@link Calendar} instance per tick.
+ */
+public final class ClockService {
+
+	/**
+	 * Logger.
+	 */
+	private static final Logger logger = Logger.getLogger(ClockService.class.getName());
+
+	/**
+	 * Name of the application property that stores the clock service of the
+	 * application.
+	 */
+	private static final String PROPERTY_NAME = ClockService.class.getName();
+
+	/**
+	 * Lock guarding creation of clock services.
+	 */
+	private static final Object instanceLock = new Object();
+
+	/**
+	 * Number of milliseconds in a day.
+	 */
+	private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+	/**
+	 * Maximal time in milliseconds by which a tick can precede the boundary,
+	 * when the tick is still considered to be at the boundary (the timer is
+	 * monotonic, while the wall-clock can be adjusted).
+	 */
+	private static final long EARLY_TICK_TOLERANCE = 50;
+
+	/**
+	 * Maximal delay in milliseconds between ticks, so that changes of the
+	 * offset of the time zone (daylight saving time) are detected.
+	 */
+	private static final long MAX_TICK_DELAY = TimeUnit.HOURS.toMillis(1);
+
+	/**
+	 * Resolutions of tick listeners.
+	 */
+	public enum Resolution {
+		/**
+		 * Ticks at boundaries of seconds.
+		 */
+		SECOND(TimeUnit.SECONDS.toMillis(1)),
+		/**
+		 * Ticks at boundaries of minutes.
+		 */
+		MINUTE(TimeUnit.MINUTES.toMillis(1)),
+		/**
+		 * Ticks at boundaries of hours.
+		 */
+		HOUR(TimeUnit.HOURS.toMillis(1)),
+		/**
+		 * Ticks at midnight.
+		 */
+		DAY(MILLIS_PER_DAY);
+
+		/**
+		 * The length of period in milliseconds.
+		 */
+		private final long period;
+
+		/**
+		 * Constructs the resolution.
+		 *
+		 * @param period
+		 *            the length of period in milliseconds.
+		 */
+		private Resolution(long period) {
+			this.period = period;
+		}
+	}
+
+	/**
+	 * Registered tick listener.
+	 */
+	private final class TickListener implements Cancellable {
+
+		/**
+		 * The resolution of ticks.
+		 */
+		private final Resolution resolution;
+
+		/**
+		 * The listener.
+		 */
+		private final Runnable listener;
+
+		/**
+		 * Indicates whether the listener was cancelled.
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Constructs the tick listener.
+		 *
+		 * @param resolution
+		 *            the resolution of ticks.
+		 * @param listener
+		 *            the listener.
+		 */
+		private TickListener(Resolution resolution, Runnable listener) {
+			this.resolution = resolution;
+			this.listener = listener;
+		}
+
+		@Override
+		public void cancel() {
+			synchronized (lock) {
+				if (cancelled) {
+					return;
+				}
+
+				cancelled = true;
+				listeners.remove(this);
+				if (listeners.isEmpty() && (timer != null)) {
+					timer.cancel();
+					timer = null;
+				}
+			}
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	/**
+	 * The application whose main thread executes ticks.
+	 */
+	private final Application application;
+
+	/**
+	 * The time zone of the wall-clock.
+	 */
+	private final TimeZone timeZone;
+
+	/**
+	 * Synchronization lock.
+	 */
+	private final Object lock = new Object();
+
+	/**
+	 * Registered tick listeners.
+	 */
+	private final List<TickListener> listeners = new ArrayList<>();
+
+	/**
+	 * The timer of the next tick, or null, if there is no scheduled tick.
+	 */
+	private Cancellable timer;
+
+	/**
+	 * The resolution of the scheduled tick.
+	 */
+	private Resolution timerResolution;
+
+	/**
+	 * The time (in milliseconds since the epoch) of the boundary of the
+	 * scheduled tick.
+	 */
+	private long nextTickTime;
+
+	/**
+	 * The time in milliseconds since the epoch of the last tick.
+	 */
+	private volatile long time;
+
+	/**
+	 * The local time (the time shifted by the offset of the time zone) in
+	 * milliseconds of the last tick.
+	 */
+	private volatile long localTime;
+
+	/**
+	 * Action of the timer.
+	 */
+	private final Runnable tickAction = new Runnable() {
+		@Override
+		public void run() {
+			tick();
+		}
+	};
+
+	/**
+	 * Constructs the clock service.
+	 *
+	 * @param application
+	 *            the application.
+	 */
+	private ClockService(Application application) {
+		this.application = application;
+		this.timeZone = TimeZone.getDefault();
+		setTime(System.currentTimeMillis());
+	}
+
+	/**
+	 * Returns the clock service of an application. The service is created
+	 * when it is requested for the first time.
+	 *
+	 * @param application
+	 *            the application.
+	 * @return the clock service.
+	 */
+	public static ClockService getInstance(Application application) {
+		if (application == null) {
+			throw new NullPointerException("Application cannot be null.");
+		}
+
+		synchronized (instanceLock) {
+			ClockService service = (ClockService) application.getProperty(PROPERTY_NAME);
+			if (service == null) {
+				service = new ClockService(application);
+				application.setProperty(PROPERTY_NAME, service);
+			}
+
+			return service;
+		}
+	}
+
+	/**
+	 * Registers a listener that is invoked in the main application thread
+	 * whenever the wall-clock crosses a boundary of the given resolution. The
+	 * time of the service is updated before the listener is invoked.
+	 *
+	 * @param resolution
+	 *            the resolution of ticks.
+	 * @param listener
+	 *            the listener.
+	 * @return the {@link Cancellable} instance that allows to unregister the
+	 *         listener.
+	 */
+	public Cancellable addTickListener(Resolution resolution, Runnable listener) {
+		if (resolution == null) {
+			throw new NullPointerException("Resolution cannot be null.");
+		}
+
+		if (listener == null) {
+			throw new NullPointerException("Listener cannot be null.");
+		}
+
+		TickListener tickListener = new TickListener(resolution, listener);
+		synchronized (lock) {
+			if (timer == null) {
+				setTime(System.currentTimeMillis());
+			}
+
+			listeners.add(tickListener);
+			if ((timer == null) || (resolution.period < timerResolution.period)) {
+				scheduleTick();
+			}
+		}
+
+		return tickListener;
+	}
+
+	/**
+	 * Returns the time of the last tick.
+	 *
+	 * @return the time in milliseconds since the epoch.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Returns the number of seconds since the epoch at the last tick.
+	 *
+	 * @return the epoch second.
+	 */
+	public long getEpochSecond() {
+		return floorDiv(time, 1000);
+	}
+
+	/**
+	 * Returns the second of day at the last tick.
+	 *
+	 * @return the second of day (from 0 to 86399).
+	 */
+	public int getSecondOfDay() {
+		return (int) (floorMod(localTime, MILLIS_PER_DAY) / 1000);
+	}
+
+	/**
+	 * Returns the minute of day at the last tick.
+	 *
+	 * @return the minute of day (from 0 to 1439).
+	 */
+	public int getMinuteOfDay() {
+		return (int) (floorMod(localTime, MILLIS_PER_DAY) / 60_000);
+	}
+
+	/**
+	 * Returns the day of week at the last tick.
+	 *
+	 * @return the day of week ({@link Calendar#SUNDAY} to
+	 *         {@link Calendar#SATURDAY}).
+	 */
+	public int getDayOfWeek() {
+		// the epoch day 0 (1970-01-01) is Thursday
+		return (int) floorMod(floorDiv(localTime, MILLIS_PER_DAY) + 4, 7) + Calendar.SUNDAY;
+	}
+
+	/**
+	 * Sets the time of the last tick.
+	 *
+	 * @param now
+	 *            the time in milliseconds since the epoch.
+	 */
+	private void setTime(long now) {
+		localTime = now + timeZone.getOffset(now);
+		time = now;
+	}
+
+	/**
+	 * Schedules the next tick at the nearest boundary of the finest resolution
+	 * of registered listeners. The method must be invoked with the lock held.
+	 */
+	private void scheduleTick() {
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
+
+		if (listeners.isEmpty()) {
+			return;
+		}
+
+		Resolution resolution = Resolution.DAY;
+		for (TickListener listener : listeners) {
+			if (listener.resolution.period < resolution.period) {
+				resolution = listener.resolution;
+			}
+		}
+
+		long period = resolution.period;
+		long nextLocalTime = (floorDiv(localTime, period) + 1) * period;
+		nextTickTime = time + (nextLocalTime - localTime);
+		long delay = Math.min(Math.max(nextTickTime - System.currentTimeMillis(), 0), MAX_TICK_DELAY);
+
+		timerResolution = resolution;
+		timer = application.invokeLater(tickAction, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Handles a tick of the timer in the main application thread.
+	 */
+	private void tick() {
+		List<TickListener> listenersToNotify = new ArrayList<>();
+		synchronized (lock) {
+			timer = null;
+			if (listeners.isEmpty()) {
+				return;
+			}
+
+			long now = System.currentTimeMillis();
+			if ((now < nextTickTime) && (nextTickTime - now <= EARLY_TICK_TOLERANCE)) {
+				now = nextTickTime;
+			}
+
+			long previousLocalTime = localTime;
+			setTime(now);
+			for (TickListener listener : listeners) {
+				long period = listener.resolution.period;
+				if (floorDiv(previousLocalTime, period) != floorDiv(localTime, period)) {
+					listenersToNotify.add(listener);
+				}
+			}
+
+			scheduleTick();
+		}
+
+		for (TickListener listener : listenersToNotify) {
+			if (listener.cancelled) {
+				continue;
+			}
+
+			try {
+				listener.listener.run();
+			} catch (Exception e) {
+				logger.log(Level.SEVERE, "Tick listener of clock service failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the largest integer less than or equal to the quotient.
+	 *
+	 * @param x
+	 *            the dividend.
+	 * @param y
+	 *            the positive divisor.
+	 * @return the floor of the quotient.
+	 */
+	private static long floorDiv(long x, long y) {
+		long quotient = x / y;
+		if ((x % y) < 0) {
+			quotient--;
+		}
+
+		return quotient;
+	}
+
+	/**
+	 * Returns the floor modulus.
+	 *
+	 * @param x
+	 *            the dividend.
+	 * @param y
+	 *            the positive divisor.
+	 * @return the non-negative remainder.
+	 */
+	private static long floorMod(long x, long y) {
+		return x - floorDiv(x, y) * y;
+	}
+}
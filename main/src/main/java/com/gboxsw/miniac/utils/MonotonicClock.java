@@ -26,4 +26,14 @@ public final class MonotonicClock {
 	public static long currentTimeMillis() {
 		return (System.nanoTime() - nanoTime0) / 1_000_000l;
 	}
+
+	/**
+	 * Returns current time in nanoseconds.
+	 * 
+	 * @return the difference, measured in nanoseconds, between the current
+	 *         time and time when the clock was created.
+	 */
+	public static long currentTimeNanos() {
+		return System.nanoTime() - nanoTime0;
+	}
 }